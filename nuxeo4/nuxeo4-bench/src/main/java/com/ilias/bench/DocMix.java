@@ -0,0 +1,92 @@
+package com.ilias.bench;
+
+import com.ilias.core.SubmitCore.DocView;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.model.PropertyNotFoundException;
+
+import java.lang.reflect.Proxy;
+import java.util.Random;
+
+/**
+ * Deterministic document populations for the benchmarks: the share of contracts, of contracts already
+ * carrying the title prefix, and of documents without a title.
+ */
+public enum DocMix {
+
+    /** Only contracts, none submitted yet. */
+    CONTRACTS(1.0, 0.0, 0.0),
+    /** A typical folder: half contracts, a third of them already prefixed, a few untitled documents. */
+    MIXED(0.5, 0.33, 0.05),
+    /** Mostly other document types, rejected by the type check. */
+    OTHERS(0.05, 0.0, 0.1);
+
+    public static final String PREFIX = "[SUBMITTED] ";
+
+    private static final String[] OTHER_TYPES = { "File", "Folder", "Note", "Picture" };
+
+    private final double contracts;
+
+    private final double prefixed;
+
+    private final double untitled;
+
+    DocMix(double contracts, double prefixed, double untitled) {
+        this.contracts = contracts;
+        this.prefixed = prefixed;
+        this.untitled = untitled;
+    }
+
+    public DocView[] views(int size) {
+        Random random = new Random(42);
+        DocView[] views = new DocView[size];
+        for (int i = 0; i < size; i++) {
+            boolean contract = random.nextDouble() < contracts;
+            views[i] = new DocView(type(random, contract), title(random, i), contract);
+        }
+        return views;
+    }
+
+    public DocumentModel[] documents(int size) {
+        DocView[] views = views(size);
+        DocumentModel[] docs = new DocumentModel[size];
+        for (int i = 0; i < size; i++) {
+            docs[i] = stub(views[i], "/default-domain/workspaces/ws/doc-" + i);
+        }
+        return docs;
+    }
+
+    private static String type(Random random, boolean contract) {
+        return contract ? "Contract" : OTHER_TYPES[random.nextInt(OTHER_TYPES.length)];
+    }
+
+    private String title(Random random, int i) {
+        double r = random.nextDouble();
+        if (r < untitled) {
+            return "";
+        }
+        return r < untitled + prefixed ? PREFIX + "Contract " + i : "Contract " + i;
+    }
+
+    /**
+     * Minimal {@link DocumentModel} answering what DocRule looks at, without a running repository. Documents
+     * without the status field throw like a real document missing the contract schema.
+     */
+    private static DocumentModel stub(DocView view, String path) {
+        return (DocumentModel) Proxy.newProxyInstance(DocMix.class.getClassLoader(),
+                new Class<?>[] { DocumentModel.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "getType" -> view.type();
+                    case "getTitle" -> view.title();
+                    case "getPathAsString" -> path;
+                    case "getPropertyValue" -> {
+                        if (!view.hasStatusProperty()) {
+                            throw new PropertyNotFoundException((String) args[0]);
+                        }
+                        yield "Draft";
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> view.toString();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,75 @@
+package com.ilias.bench;
+
+import com.ilias.fp.DocRule;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static com.ilias.fp.DocRule.*;
+
+/**
+ * Cost of the DocRule precondition chains over different document mixes: the OpSubmitForApproval chain
+ * and the OpChangeStatus residual check, including the exception thrown for documents without the status
+ * field.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DocRuleBenchmark {
+
+    private static final int SIZE = 4096;
+
+    private static final String XPATH_STATUS = "contract:status";
+
+    @Param({ "CONTRACTS", "MIXED", "OTHERS" })
+    public DocMix mix;
+
+    private DocumentModel[] docs;
+
+    private Predicate<DocumentModel> submitChain;
+
+    private Predicate<DocumentModel> hasStatus;
+
+    private Predicate<DocumentModel> pathAndType;
+
+    @Setup
+    public void setup() {
+        docs = mix.documents(SIZE);
+        submitChain = typeIs("Contract").and(hasTitle).and(titleMissingPrefix(DocMix.PREFIX)).and(hasProperty(XPATH_STATUS));
+        hasStatus = hasProperty(XPATH_STATUS);
+        pathAndType = DocRule.allOf(pathStartsWith("/default-domain/workspaces"), typeIs("Contract"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int submitChain() {
+        return count(submitChain);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int hasStatusProperty() {
+        return count(hasStatus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int pathAndType() {
+        return count(pathAndType);
+    }
+
+    private int count(Predicate<DocumentModel> predicate) {
+        int matched = 0;
+        for (DocumentModel doc : docs) {
+            if (predicate.test(doc)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ilias.bench;
+
+import com.ilias.core.SubmitCore;
+import com.ilias.core.SubmitCore.DocPatch;
+import com.ilias.core.SubmitCore.DocView;
+import com.ilias.core.SubmitCore.PatchBuffer;
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.core.SubmitCore.ViewBatch;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning cost of {@link DocPatch#plan} and {@link DocPatch#merge}, one invocation per document as in the
+ * bulk paths, against the columnar {@link SubmitCore#planBatch}. Run with the gc profiler to get the allocation per plan:
+ * <pre>
+ * java -jar nuxeo4-bench/target/benchmarks.jar SubmitCoreBenchmark -prof gc -rf json -rff submitcore.json
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SubmitCoreBenchmark {
+
+    private static final int SIZE = 4096;
+
+    @Param({ "CONTRACTS", "MIXED", "OTHERS" })
+    public DocMix mix;
+
+    /** {@code statusOnly} plans with a blank title prefix, as the OpChangeStatus sweeps do. */
+    @Param({ "submit", "statusOnly" })
+    public String plan;
+
+    private DocView[] views;
+
+    private ViewBatch batch;
+
+    private PatchBuffer buffer;
+
+    private SubmitParams params;
+
+    private DocPatch left;
+
+    private DocPatch right;
+
+    private int i;
+
+    @Setup
+    public void setup() {
+        views = mix.views(SIZE);
+        batch = new ViewBatch(SIZE);
+        for (DocView v : views) {
+            batch.add(v.type(), v.title(), v.hasStatusProperty());
+        }
+        buffer = new PatchBuffer(SIZE);
+        params = new SubmitParams("Contract", "In Review", "submit".equals(plan) ? DocMix.PREFIX : "", false);
+        left = new DocPatch(Optional.of("title"), Optional.empty());
+        right = new DocPatch(Optional.empty(), Optional.of("In Review"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void planBatch(Blackhole bh) {
+        for (DocView view : views) {
+            bh.consume(DocPatch.plan(view, params));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public PatchBuffer planColumnar() {
+        SubmitCore.planBatch(batch, params, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public DocPatch planOne() {
+        DocView view = views[i++ & (SIZE - 1)];
+        return DocPatch.plan(view, params);
+    }
+
+    @Benchmark
+    public DocPatch merge() {
+        return left.merge(right);
+    }
+}
@@ -0,0 +1,62 @@
+package com.ilias.bulk;
+
+import static org.nuxeo.ecm.core.bulk.BulkServiceImpl.STATUS_STREAM;
+import static org.nuxeo.lib.stream.computation.AbstractComputation.INPUT_1;
+import static org.nuxeo.lib.stream.computation.AbstractComputation.OUTPUT_1;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.ContractService.Outcome;
+import com.ilias.service.interfaces.ContractService.Transition;
+import org.nuxeo.ecm.core.api.*;
+import org.nuxeo.ecm.core.bulk.action.computation.AbstractBulkComputation;
+import org.nuxeo.lib.stream.computation.Topology;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.stream.StreamProcessorTopology;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk action promoting contracts from In Review to Approved. The bulk scroller splits the query
+ * into buckets, and each bucket is processed by the computation on any node / WorkManager thread.
+ */
+public class ContractApproveAction implements StreamProcessorTopology {
+
+    public static final String ACTION_NAME = "contractApprove";
+    public static final String ACTION_FULL_NAME = "bulk/" + ACTION_NAME;
+
+    @Override
+    public Topology getTopology(Map<String, String> options) {
+        return Topology.builder()
+                       .addComputation(ContractApproveComputation::new,
+                               Arrays.asList(INPUT_1 + ":" + ACTION_FULL_NAME, OUTPUT_1 + ":" + STATUS_STREAM))
+                       .build();
+    }
+
+    public static class ContractApproveComputation extends AbstractBulkComputation {
+
+        public ContractApproveComputation() {
+            super(ACTION_FULL_NAME);
+        }
+
+        @Override
+        protected void compute(CoreSession session, List<String> ids, Map<String, Serializable> properties) {
+            DocumentRef[] refs = ids.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+            ContractService contracts = Framework.getService(ContractService.class);
+            int changed = 0;
+            for (DocumentModel d : session.getDocuments(refs)) {
+                Transition transition = contracts.transition(session, d, ContractService.IN_REVIEW,
+                        ContractService.APPROVED);
+                if (transition.outcome() == Outcome.APPLIED) {
+                    changed++;
+                }
+            }
+            ContractMetrics.scanned(ACTION_NAME, ids.size());
+            ContractMetrics.changed(ACTION_NAME, changed);
+            // the batch is committed by AbstractBulkComputation
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ilias.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded path → document id map: least recently used entries are evicted past {@code maxSize} and entries
+ * older than {@code ttl} are dropped when read. Only ids are kept, never documents, so callers resolve them
+ * through their own session and the usual permission checks.
+ */
+public class PathIdCache {
+
+    private record Entry(String id, long loadedAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PathIdCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    PathIdCache(int maxSize, Duration ttl, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PathIdCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** The cached id, null when absent or expired. */
+    public synchronized String get(String path) {
+        Entry entry = entries.get(path);
+        if (entry != null && clock.getAsLong() - entry.loadedAt() > ttlNanos) {
+            entries.remove(path);
+            evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.id();
+    }
+
+    public synchronized void put(String path, String id) {
+        entries.put(path, new Entry(id, clock.getAsLong()));
+    }
+
+    /** Drops {@code path} and every path below it, e.g. after a folder is moved, renamed or removed. */
+    public synchronized void invalidate(String path) {
+        String below = path.endsWith("/") ? path : path + "/";
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext();) {
+            String cached = it.next();
+            if (cached.equals(path) || cached.startsWith(below)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -1,5 +1,7 @@
 package com.ilias.core;
 
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 
 public class SubmitCore {
@@ -18,6 +20,10 @@ public class SubmitCore {
             type = type == null ? "" : type;
             title = title == null ? "" : title;
         }
+        /** View over a projection row ({@code ecm:primaryType}, optional {@code dc:title}) */
+        public static DocView fromRow(Map<String, ?> row, boolean hasStatusProperty) {
+            return new DocView((String) row.get("ecm:primaryType"), (String) row.get("dc:title"), hasStatusProperty);
+        }
     }
 
     public record DocPatch (Optional<String> newTitle, Optional<String> newStatus){
@@ -46,4 +52,112 @@ public class SubmitCore {
             return titlePatch.merge(statusPatch);
         }
     }
+
+    /** Columnar, reusable batch of views: one slot per document, no per-document object. */
+    public static final class ViewBatch {
+        private String[] types;
+        private String[] titles;
+        private boolean[] hasStatus;
+        private int size;
+
+        public ViewBatch(int capacity) {
+            types = new String[capacity];
+            titles = new String[capacity];
+            hasStatus = new boolean[capacity];
+        }
+        public int size() { return size; }
+        public void clear() {
+            Arrays.fill(types, 0, size, null);
+            Arrays.fill(titles, 0, size, null);
+            size = 0;
+        }
+        /** Appends a document, growing the arrays if needed; returns its index in the batch. */
+        public int add(String type, String title, boolean hasStatusProperty) {
+            if (size == types.length) {
+                int capacity = Math.max(16, size * 2);
+                types = Arrays.copyOf(types, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                hasStatus = Arrays.copyOf(hasStatus, capacity);
+            }
+            types[size] = type == null ? "" : type;
+            titles[size] = title == null ? "" : title;
+            hasStatus[size] = hasStatusProperty;
+            return size++;
+        }
+        public String type(int i) { return types[i]; }
+        public String title(int i) { return titles[i]; }
+        public boolean hasStatusProperty(int i) { return hasStatus[i]; }
+    }
+
+    /**
+     * Reusable planning result for a {@link ViewBatch}: bit flags per document plus the new title of the
+     * documents whose title changes. The new status is the same for every flagged document.
+     */
+    public static final class PatchBuffer {
+        public static final byte TITLE = 1;
+        public static final byte STATUS = 2;
+        /** Type mismatch while enforcing the type; {@link DocPatch#plan} throws in that case. */
+        public static final byte REJECTED = 4;
+
+        private byte[] flags;
+        private String[] newTitles;
+        private String newStatus = "";
+        private int size;
+
+        public PatchBuffer(int capacity) {
+            flags = new byte[capacity];
+            newTitles = new String[capacity];
+        }
+        public int size() { return size; }
+        public boolean isEmpty(int i) { return (flags[i] & (TITLE | STATUS)) == 0; }
+        public boolean hasNewTitle(int i) { return (flags[i] & TITLE) != 0; }
+        public boolean hasNewStatus(int i) { return (flags[i] & STATUS) != 0; }
+        public boolean isRejected(int i) { return (flags[i] & REJECTED) != 0; }
+        public String newTitle(int i) { return newTitles[i]; }
+        public String newStatus() { return newStatus; }
+        /** Same value as {@link DocPatch#plan} for a non-rejected document; allocates, for callers that need it. */
+        public DocPatch toPatch(int i) {
+            return new DocPatch(hasNewTitle(i) ? Optional.of(newTitles[i]) : Optional.empty(),
+                    hasNewStatus(i) ? Optional.of(newStatus) : Optional.empty());
+        }
+        private void reset(int capacity) {
+            if (flags.length < capacity) {
+                flags = new byte[capacity];
+                newTitles = new String[capacity];
+            } else {
+                Arrays.fill(newTitles, 0, size, null);
+            }
+            size = capacity;
+        }
+    }
+
+    /**
+     * Plans every view of the batch into {@code out}, with the same rules as {@link DocPatch#plan} but
+     * without intermediate objects: only the changed titles are allocated. Type mismatches are flagged
+     * {@link PatchBuffer#REJECTED} instead of thrown.
+     */
+    public static void planBatch(ViewBatch views, SubmitParams p, PatchBuffer out) {
+        int n = views.size();
+        out.reset(n);
+        out.newStatus = p.statusInReview();
+        String prefix = p.titlePrefix();
+        boolean prefixBlank = prefix.isBlank();
+        String requiredType = p.requiredType();
+        for (int i = 0; i < n; i++) {
+            if (p.enforceType() && !requiredType.equals(views.types[i])) {
+                out.flags[i] = PatchBuffer.REJECTED;
+                continue;
+            }
+            byte f = 0;
+            String title = views.titles[i];
+            if (!prefixBlank && !title.startsWith(prefix)) {
+                f |= PatchBuffer.TITLE;
+                out.newTitles[i] = prefix.concat(title);
+            }
+            if (views.hasStatus[i]) {
+                f |= PatchBuffer.STATUS;
+            }
+            out.flags[i] = f;
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package com.ilias.defaults;
+
+import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XNodeList;
+import org.nuxeo.common.xmap.annotation.XObject;
+import org.nuxeo.common.xmap.registry.XRegistry;
+import org.nuxeo.common.xmap.registry.XRegistryId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Defaults applied to new documents of one type before their first write.
+ * <pre>
+ * &lt;defaults type="Contract" titlePrefix="[CONTRACT] "&gt;
+ *   &lt;property xpath="contract:status" value="Draft" override="true" /&gt;
+ * &lt;/defaults&gt;
+ * </pre>
+ */
+@XObject("defaults")
+@XRegistry
+public class DefaultsDescriptor {
+
+    @XNode("@type")
+    @XRegistryId
+    protected String type;
+
+    @XNode(value = "@titlePrefix", trim = false)
+    protected String titlePrefix;
+
+    @XNodeList(value = "property", type = ArrayList.class, componentType = PropertyDefault.class)
+    protected List<PropertyDefault> properties = new ArrayList<>();
+
+    public String getType() {
+        return type;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix == null ? "" : titlePrefix;
+    }
+
+    public List<PropertyDefault> getProperties() {
+        return properties;
+    }
+
+    @XObject("property")
+    public static class PropertyDefault {
+
+        @XNode("@xpath")
+        protected String xpath;
+
+        @XNode("@value")
+        protected String value;
+
+        /** When false the value is only set if the property is empty. */
+        @XNode("@override")
+        protected boolean override;
+
+        public String getXpath() {
+            return xpath;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public boolean isOverride() {
+            return override;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.ilias.fp;
+
+import com.ilias.fp.DocRule.Rule;
+import com.ilias.fp.RuleSetDescriptor.RuleDescriptor;
+import org.nuxeo.ecm.core.api.DocumentModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A {@link RuleSetDescriptor} compiled once at startup. Each check keeps its rejection rate and (sampled)
+ * cost, and the evaluation order is periodically re-sorted so that cheap, highly selective checks run first.
+ * The result of a chain does not depend on the order, only its cost does.
+ */
+public class CompiledRuleSet {
+
+    /** Evaluations between two re-orderings. */
+    protected static final long REORDER_INTERVAL = 1024;
+
+    /** One evaluation in {@code SAMPLE_MASK + 1} is timed. */
+    protected static final long SAMPLE_MASK = 63;
+
+    protected final String id;
+
+    protected final Check[] checks;
+
+    /** Indexes into {@link #checks}, replaced as a whole when re-ordered. */
+    protected volatile int[] order;
+
+    protected final AtomicLong evaluations = new AtomicLong();
+
+    protected CompiledRuleSet(String id, Check[] checks) {
+        this.id = id;
+        this.checks = checks;
+        order = new int[checks.length];
+        Arrays.setAll(order, i -> i);
+    }
+
+    public static CompiledRuleSet compile(RuleSetDescriptor descriptor) {
+        Check[] checks = descriptor.getRules().stream().map(CompiledRuleSet::compile).toArray(Check[]::new);
+        return new CompiledRuleSet(descriptor.getId(), checks);
+    }
+
+    protected static Check compile(RuleDescriptor rule) {
+        Function<Map<String, String>, String> value = argument(rule.getValue());
+        String xpath = rule.getXpath();
+        Function<Map<String, String>, Rule> binder = switch (rule.getCheck()) {
+            case "typeIs" -> args -> DocRule.typeIs(value.apply(args));
+            case "pathStartsWith" -> args -> DocRule.pathStartsWith(value.apply(args));
+            case "hasTitle" -> args -> new DocRule.Opaque(DocRule.hasTitle);
+            case "titleMissingPrefix" -> args -> new DocRule.Opaque(DocRule.titleMissingPrefix(value.apply(args)));
+            case "hasProperty" -> args -> DocRule.hasProperty(xpath);
+            case "propertyEquals" -> args -> DocRule.propertyEquals(xpath, value.apply(args));
+            default -> throw new IllegalArgumentException("Unknown rule check: " + rule.getCheck());
+        };
+        if (rule.isOptional()) {
+            Function<Map<String, String>, Rule> required = binder;
+            binder = args -> {
+                String v = value.apply(args);
+                return v == null || v.isBlank() ? DocRule.ALWAYS : required.apply(args);
+            };
+        }
+        return new Check(rule.getCheck(), binder);
+    }
+
+    /** A literal, or {@code ${name}} looked up in the call arguments. */
+    protected static Function<Map<String, String>, String> argument(String value) {
+        if (value != null && value.startsWith("${") && value.endsWith("}")) {
+            String name = value.substring(2, value.length() - 1);
+            return args -> args.get(name);
+        }
+        return args -> value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** Binds the call arguments; the evaluator is meant to be reused for every document of the call. */
+    public Evaluator bind(Map<String, String> args) {
+        Rule[] rules = new Rule[checks.length];
+        for (int i = 0; i < checks.length; i++) {
+            rules[i] = checks[i].binder.apply(args);
+        }
+        return new Evaluator(rules);
+    }
+
+    /** Current evaluation order, by check name. */
+    public List<String> getOrder() {
+        List<String> names = new ArrayList<>();
+        for (int i : order) {
+            names.add(checks[i].name);
+        }
+        return names;
+    }
+
+    protected void reorder() {
+        Integer[] sorted = Arrays.stream(order).boxed().toArray(Integer[]::new);
+        Arrays.sort(sorted, Comparator.comparingDouble(i -> checks[i].score()));
+        order = Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+    }
+
+    public class Evaluator {
+
+        protected final Rule[] rules;
+
+        protected Evaluator(Rule[] rules) {
+            this.rules = rules;
+        }
+
+        public boolean test(DocumentModel doc) {
+            return firstRejecting(doc) == null;
+        }
+
+        /** Name of the first check rejecting the document, in the current order; null when all pass. */
+        public String firstRejecting(DocumentModel doc) {
+            long n = evaluations.incrementAndGet();
+            if (n % REORDER_INTERVAL == 0) {
+                reorder();
+            }
+            boolean sample = (n & SAMPLE_MASK) == 0;
+            for (int i : order) {
+                Check check = checks[i];
+                long start = sample ? System.nanoTime() : 0;
+                boolean passed = rules[i].test(doc);
+                check.record(passed, sample ? System.nanoTime() - start : -1);
+                if (!passed) {
+                    return check.name;
+                }
+            }
+            return null;
+        }
+
+        /** The bound chain as one rule, so callers can push what renders into NXQL. */
+        public Rule toRule() {
+            return DocRule.allOf(rules);
+        }
+    }
+
+    protected static class Check {
+
+        protected final String name;
+
+        protected final Function<Map<String, String>, Rule> binder;
+
+        protected final LongAdder evaluated = new LongAdder();
+
+        protected final LongAdder rejected = new LongAdder();
+
+        protected final LongAdder sampledNanos = new LongAdder();
+
+        protected final LongAdder samples = new LongAdder();
+
+        protected Check(String name, Function<Map<String, String>, Rule> binder) {
+            this.name = name;
+            this.binder = binder;
+        }
+
+        protected void record(boolean passed, long nanos) {
+            evaluated.increment();
+            if (!passed) {
+                rejected.increment();
+            }
+            if (nanos >= 0) {
+                sampledNanos.add(nanos);
+                samples.increment();
+            }
+        }
+
+        /** Expected cost per rejection: lower runs first. */
+        protected double score() {
+            long count = samples.sum();
+            double cost = count == 0 ? 1 : (double) sampledNanos.sum() / count;
+            long total = evaluated.sum();
+            double rejectionRate = total == 0 ? 0 : (double) rejected.sum() / total;
+            return (cost + 1) / (rejectionRate + 1e-3);
+        }
+    }
+}
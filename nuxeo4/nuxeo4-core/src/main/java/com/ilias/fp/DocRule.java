@@ -1,28 +1,233 @@
 package com.ilias.fp;
 
+import com.ilias.service.interfaces.TypeCapabilityService;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.PropertyException;
+import org.nuxeo.ecm.core.query.sql.model.Reference;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.query.sql.model.SelectClause;
+import org.nuxeo.runtime.api.Framework;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public final class DocRule {
     private DocRule() {}
 
-    public static final Predicate<DocumentModel> typeIsContract =
-            doc -> "Contract".equals(doc.getType());
+    /**
+     * A document predicate that can also render itself as an NXQL condition, so callers push it into the
+     * repository query and only evaluate the {@link #residual()} part in memory.
+     */
+    public interface Rule extends Predicate<DocumentModel> {
 
-    public static Predicate<DocumentModel> typeIs(String requiredType) {
-        String req = requiredType == null ? "" : requiredType;
-        return doc -> Objects.equals(req, doc.getType());
+        /** NXQL condition for this rule, empty when it can only be evaluated in memory. */
+        Optional<String> toNxql();
+
+        /** What is left to check in memory once {@link #toNxql()} has been applied by the query. */
+        default Rule residual() {
+            return toNxql().isPresent() ? ALWAYS : this;
+        }
+
+        /**
+         * The {@link #residual()} once the document's primary type is known: {@link #ALWAYS} when nothing is left
+         * to check, {@link #NEVER} when the type alone rejects the document, otherwise what needs the document.
+         */
+        default Rule residualForType(String type) {
+            return residual();
+        }
+
+        default Rule and(Rule other) {
+            return allOf(this, other);
+        }
     }
 
-    public static Predicate<DocumentModel> pathStartsWith(String prefix) {
-        String p = prefix == null ? "" : prefix;
-        return d -> {
+    /** Matches every document; renders as nothing. */
+    public static final Rule ALWAYS = new Rule() {
+        @Override
+        public boolean test(DocumentModel doc) {
+            return true;
+        }
+
+        @Override
+        public Optional<String> toNxql() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Rule residual() {
+            return this;
+        }
+    };
+
+    /** Matches no document; only a {@link Rule#residualForType} answer, never rendered into a query. */
+    public static final Rule NEVER = new Rule() {
+        @Override
+        public boolean test(DocumentModel doc) {
+            return false;
+        }
+
+        @Override
+        public Optional<String> toNxql() {
+            return Optional.empty();
+        }
+    };
+
+    public record TypeIs(String type) implements Rule {
+        public TypeIs {
+            type = type == null ? "" : type;
+        }
+        @Override public boolean test(DocumentModel doc) { return Objects.equals(type, doc.getType()); }
+        @Override public Optional<String> toNxql() { return Optional.of("ecm:primaryType = " + literal(type)); }
+        @Override public Rule residualForType(String docType) { return type.equals(docType) ? ALWAYS : NEVER; }
+    }
+
+    /** In memory this is a plain string prefix; in NXQL it is {@code ecm:path STARTSWITH} (descendants). */
+    public record PathStartsWith(String prefix) implements Rule {
+        public PathStartsWith {
+            prefix = prefix == null ? "" : prefix;
+        }
+        @Override public boolean test(DocumentModel d) {
             String path = d.getPathAsString();
-            return path != null && path.startsWith(p);
-        };
+            return path != null && path.startsWith(prefix);
+        }
+        @Override public Optional<String> toNxql() {
+            return prefix.isEmpty() ? Optional.empty() : Optional.of("ecm:path STARTSWITH " + literal(prefix));
+        }
+    }
+
+    /** Rendered only when the schema manager knows the field, otherwise the query would not parse. */
+    public record PropertyEquals(String xpath, String value) implements Rule {
+        public PropertyEquals {
+            xpath = xpath == null ? "" : xpath;
+        }
+        @Override public boolean test(DocumentModel d) {
+            try {
+                return Objects.equals(value, d.getPropertyValue(xpath));
+            } catch (PropertyException e) {
+                return false; // schema/field missing
+            }
+        }
+        @Override public Optional<String> toNxql() {
+            if (!isKnownField(xpath)) {
+                return Optional.empty();
+            }
+            return Optional.of(value == null ? xpath + " IS NULL" : xpath + " = " + literal(value));
+        }
+    }
+
+    /** Field presence depends on the document schemas, so it stays an in-memory check, answered per type. */
+    public record HasProperty(String xpath) implements Rule {
+        public HasProperty {
+            xpath = xpath == null ? "" : xpath;
+        }
+        @Override public boolean test(DocumentModel d) {
+            TypeCapabilityService capabilities = capabilities();
+            return capabilities != null ? capabilities.hasField(d.getType(), xpath) : probe(d, xpath);
+        }
+        @Override public Optional<String> toNxql() { return Optional.empty(); }
+        @Override public Rule residualForType(String type) {
+            TypeCapabilityService capabilities = capabilities();
+            if (capabilities == null) {
+                return this; // no schema registry, the document has to be probed
+            }
+            return capabilities.hasField(type, xpath) ? ALWAYS : NEVER;
+        }
+    }
+
+    public record IdIn(List<String> ids) implements Rule {
+        public IdIn {
+            ids = List.copyOf(ids);
+        }
+        @Override public boolean test(DocumentModel d) { return ids.contains(d.getId()); }
+        @Override public Optional<String> toNxql() {
+            return Optional.of(ids.stream().map(DocRule::literal).collect(Collectors.joining(", ", "ecm:uuid IN (", ")")));
+        }
+    }
+
+    /** Documents whose id sorts after {@code id}, for keyset paging in id order. */
+    public record IdAfter(String id) implements Rule {
+        public IdAfter {
+            id = id == null ? "" : id;
+        }
+        @Override public boolean test(DocumentModel d) { return d.getId().compareTo(id) > 0; }
+        @Override public Optional<String> toNxql() { return Optional.of("ecm:uuid > " + literal(id)); }
+    }
+
+    /** Opaque lambda rule, evaluated in memory only. */
+    public record Opaque(Predicate<DocumentModel> predicate) implements Rule {
+        @Override public boolean test(DocumentModel d) { return predicate.test(d); }
+        @Override public Optional<String> toNxql() { return Optional.empty(); }
+    }
+
+    /** Conjunction; renders the NXQL-capable members and keeps the others as residual. */
+    public record AllOf(List<Rule> rules) implements Rule {
+        public AllOf {
+            rules = List.copyOf(rules);
+        }
+        @Override public boolean test(DocumentModel d) {
+            for (Rule r : rules) {
+                if (!r.test(d)) return false;
+            }
+            return true;
+        }
+        @Override public Optional<String> toNxql() {
+            List<String> parts = rules.stream()
+                                      .map(Rule::toNxql)
+                                      .flatMap(Optional::stream)
+                                      .collect(Collectors.toList());
+            return parts.isEmpty() ? Optional.empty() : Optional.of(String.join(" AND ", parts));
+        }
+        @Override public Rule residual() {
+            List<Rule> left = rules.stream()
+                                   .map(Rule::residual)
+                                   .filter(r -> r != ALWAYS)
+                                   .collect(Collectors.toList());
+            return left.isEmpty() ? ALWAYS : left.size() == 1 ? left.get(0) : new AllOf(left);
+        }
+        @Override public Rule residualForType(String type) {
+            List<Rule> left = new ArrayList<>();
+            for (Rule r : rules) {
+                Rule residual = r.residualForType(type);
+                if (residual == NEVER) {
+                    return NEVER;
+                }
+                if (residual != ALWAYS) {
+                    left.add(residual);
+                }
+            }
+            return left.isEmpty() ? ALWAYS : left.size() == 1 ? left.get(0) : new AllOf(left);
+        }
+    }
+
+    /** Flattened conjunction; a rule given twice (e.g. the same path scope) is kept once. */
+    public static Rule allOf(Rule... rules) {
+        List<Rule> flat = new ArrayList<>();
+        for (Rule r : rules) {
+            for (Rule member : r instanceof AllOf all ? all.rules() : List.of(r)) {
+                if (member != ALWAYS && !flat.contains(member)) {
+                    flat.add(member);
+                }
+            }
+        }
+        return flat.isEmpty() ? ALWAYS : flat.size() == 1 ? flat.get(0) : new AllOf(flat);
+    }
+
+    public static final Rule typeIsContract = new TypeIs("Contract");
+
+    public static Rule typeIs(String requiredType) {
+        return new TypeIs(requiredType);
+    }
+
+    public static Rule pathStartsWith(String prefix) {
+        return new PathStartsWith(prefix);
+    }
+
+    public static Rule propertyEquals(String xpath, String value) {
+        return new PropertyEquals(xpath, value);
     }
 
     public static final Predicate<DocumentModel> hasTitle =
@@ -39,15 +244,86 @@ public final class DocRule {
         };
     }
 
-    public static Predicate<DocumentModel> hasProperty(String xpath) {
-        String xp = xpath == null ? "" : xpath;
-        return d -> {
-            try {
-                d.getPropertyValue(xp);
-                return true;
-            } catch (PropertyException e) {
-                return false; // schema/field missing
-            }
-        };
+    public static Rule hasProperty(String xpath) {
+        return new HasProperty(xpath);
+    }
+
+    public static Rule idIn(List<String> ids) {
+        return new IdIn(ids);
+    }
+
+    public static Rule idAfter(String id) {
+        return new IdAfter(id);
+    }
+
+    /** Builds {@code SELECT <select> FROM <from> WHERE <rule> [AND <extra>]}, falling back to {@code extra} alone. */
+    public static String select(String select, String from, Rule rule, String extra) {
+        List<String> where = new ArrayList<>();
+        rule.toNxql().ifPresent(where::add);
+        if (extra != null && !extra.isBlank()) {
+            where.add(extra);
+        }
+        String nxql = "SELECT " + select + " FROM " + from;
+        return where.isEmpty() ? nxql : nxql + " WHERE " + String.join(" AND ", where);
+    }
+
+    /** Replaces the SELECT clause of {@code nxql} with the given columns, for projection queries. */
+    public static String selectColumns(String nxql, String... columns) {
+        SQLQuery query = NxqlWriter.parse(nxql);
+        SelectClause select = new SelectClause();
+        for (String column : columns) {
+            select.add(new Reference(column));
+        }
+        return NxqlWriter.write(new SQLQuery(select, query.from, query.where, query.groupBy, query.having,
+                query.orderBy, query.limit, query.offset));
+    }
+
+    /** Adds the NXQL part of {@code rule} to an existing query, keeping its ORDER BY clause. */
+    public static String restrict(String nxql, Rule rule) {
+        Optional<String> cond = rule.toNxql();
+        if (cond.isEmpty()) {
+            return nxql;
+        }
+        SQLQuery query = NxqlWriter.parse(nxql);
+        return NxqlWriter.write(new SQLQuery(query.select, query.from, NxqlWriter.and(query.where, cond.get()),
+                query.groupBy, query.having, query.orderBy, query.limit, query.offset));
+    }
+
+    /** Replaces the ORDER BY clause of {@code nxql}, if any, with {@code ORDER BY <orderBy>}. */
+    public static String orderBy(String nxql, String orderBy) {
+        SQLQuery query = NxqlWriter.parse(nxql);
+        return NxqlWriter.write(new SQLQuery(query.select, query.from, query.where, query.groupBy, query.having,
+                NxqlWriter.orderBy(orderBy), query.limit, query.offset));
+    }
+
+    /** Quotes a value as an NXQL string literal. */
+    public static String literal(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    /** Whether documents of {@code type} carry {@code xpath}, answered from the capability cache. */
+    public static boolean typeHasField(String type, String xpath) {
+        TypeCapabilityService capabilities = capabilities();
+        return capabilities == null || capabilities.hasField(type, xpath);
+    }
+
+    public static boolean isKnownField(String xpath) {
+        TypeCapabilityService capabilities = capabilities();
+        return capabilities == null || capabilities.isKnownField(xpath);
+    }
+
+    /** Null in plain unit tests, where there is no schema registry to consult. */
+    private static TypeCapabilityService capabilities() {
+        return Framework.getRuntime() == null ? null : Framework.getService(TypeCapabilityService.class);
+    }
+
+    /** Without a runtime the only way to know is to ask the document itself. */
+    private static boolean probe(DocumentModel d, String xpath) {
+        try {
+            d.getPropertyValue(xpath);
+            return true;
+        } catch (PropertyException e) {
+            return false; // schema/field missing
+        }
     }
 }
@@ -0,0 +1,146 @@
+package com.ilias.fp;
+
+import org.nuxeo.ecm.core.query.QueryParseException;
+import org.nuxeo.ecm.core.query.sql.SQLQueryParser;
+import org.nuxeo.ecm.core.query.sql.model.Expression;
+import org.nuxeo.ecm.core.query.sql.model.Function;
+import org.nuxeo.ecm.core.query.sql.model.LiteralList;
+import org.nuxeo.ecm.core.query.sql.model.Operand;
+import org.nuxeo.ecm.core.query.sql.model.Operator;
+import org.nuxeo.ecm.core.query.sql.model.OrderByClause;
+import org.nuxeo.ecm.core.query.sql.model.OrderByExpr;
+import org.nuxeo.ecm.core.query.sql.model.Predicate;
+import org.nuxeo.ecm.core.query.sql.model.Reference;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.query.sql.model.StringLiteral;
+import org.nuxeo.ecm.core.query.sql.model.WhereClause;
+
+import java.util.List;
+
+/**
+ * Parses NXQL into the core query model and writes a (rewritten) model back as NXQL, so {@link DocRule} edits
+ * clauses rather than text: keywords inside string literals, line breaks and tabs are all handled by the parser.
+ */
+final class NxqlWriter {
+    private NxqlWriter() {}
+
+    /** Prefix turning a bare condition or ORDER BY list into a query the parser accepts. */
+    private static final String ANY = "SELECT * FROM Document";
+
+    static SQLQuery parse(String nxql) {
+        try {
+            return SQLQueryParser.parse(nxql);
+        } catch (QueryParseException e) {
+            throw new IllegalArgumentException("Not an NXQL query: " + nxql, e);
+        }
+    }
+
+    /** {@code where AND condition}, or the condition alone when there is no WHERE clause yet. */
+    static WhereClause and(WhereClause where, String condition) {
+        Predicate extra = parse(ANY + " WHERE " + condition).where.predicate;
+        if (where == null || where.predicate == null) {
+            return new WhereClause(extra);
+        }
+        return new WhereClause(new Predicate(where.predicate, Operator.AND, extra));
+    }
+
+    static OrderByClause orderBy(String orderBy) {
+        return parse(ANY + " ORDER BY " + orderBy).orderBy;
+    }
+
+    static String write(SQLQuery query) {
+        StringBuilder sb = new StringBuilder("SELECT ");
+        if (query.select.isDistinct()) {
+            sb.append("DISTINCT ");
+        }
+        if (query.select.count() == 0) {
+            sb.append('*');
+        }
+        for (int i = 0; i < query.select.count(); i++) {
+            sb.append(i == 0 ? "" : ", ");
+            operand(sb, query.select.get(i));
+        }
+        sb.append(" FROM ");
+        for (int i = 0; i < query.from.count(); i++) {
+            sb.append(i == 0 ? "" : ", ").append(query.from.get(i));
+        }
+        if (query.where != null && query.where.predicate != null) {
+            sb.append(" WHERE ");
+            operand(sb, query.where.predicate);
+        }
+        if (query.orderBy != null && !query.orderBy.elements.isEmpty()) {
+            sb.append(" ORDER BY ");
+            for (int i = 0; i < query.orderBy.elements.size(); i++) {
+                OrderByExpr expr = query.orderBy.elements.get(i);
+                sb.append(i == 0 ? "" : ", ");
+                operand(sb, expr.reference);
+                if (expr.isDescending) {
+                    sb.append(" DESC");
+                }
+            }
+        }
+        if (query.limit > 0) {
+            sb.append(" LIMIT ").append(query.limit);
+        }
+        if (query.offset > 0) {
+            sb.append(" OFFSET ").append(query.offset);
+        }
+        return sb.toString();
+    }
+
+    private static void operand(StringBuilder sb, Operand operand) {
+        if (operand instanceof Expression e) {
+            expression(sb, e);
+        } else if (operand instanceof Reference r) {
+            sb.append(r.cast == null ? r.name : r.cast + "(" + r.name + ")");
+        } else if (operand instanceof StringLiteral s) {
+            sb.append(DocRule.literal(s.value)); // the parser unescapes, so quote again
+        } else if (operand instanceof LiteralList list) {
+            list(sb, list);
+        } else if (operand instanceof Function f) {
+            sb.append(f.name);
+            list(sb, f.args);
+        } else {
+            sb.append(operand); // numbers and dates render as NXQL
+        }
+    }
+
+    private static void expression(StringBuilder sb, Expression e) {
+        Operator op = e.operator;
+        if (op == Operator.NOT) {
+            sb.append("NOT ");
+            group(sb, e.lvalue != null ? e.lvalue : e.rvalue, op);
+        } else if (e.rvalue == null) {
+            operand(sb, e.lvalue);
+            sb.append(' ').append(op); // IS NULL, IS NOT NULL
+        } else if ((op == Operator.BETWEEN || op == Operator.NOTBETWEEN) && e.rvalue instanceof LiteralList range) {
+            operand(sb, e.lvalue);
+            sb.append(' ').append(op).append(' ');
+            operand(sb, range.get(0));
+            sb.append(" AND ");
+            operand(sb, range.get(1));
+        } else {
+            group(sb, e.lvalue, op);
+            sb.append(' ').append(op).append(' ');
+            group(sb, e.rvalue, op);
+        }
+    }
+
+    /** Parenthesizes a boolean sub-expression unless it uses the same (associative) operator as its parent. */
+    private static void group(StringBuilder sb, Operand operand, Operator parent) {
+        boolean nested = operand instanceof Expression e && e.operator != parent
+                && (e.operator == Operator.AND || e.operator == Operator.OR);
+        sb.append(nested ? "(" : "");
+        operand(sb, operand);
+        sb.append(nested ? ")" : "");
+    }
+
+    private static void list(StringBuilder sb, List<? extends Operand> operands) {
+        sb.append('(');
+        for (int i = 0; i < operands.size(); i++) {
+            sb.append(i == 0 ? "" : ", ");
+            operand(sb, operands.get(i));
+        }
+        sb.append(')');
+    }
+}
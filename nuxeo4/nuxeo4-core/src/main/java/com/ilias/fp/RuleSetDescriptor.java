@@ -0,0 +1,73 @@
+package com.ilias.fp;
+
+import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XNodeList;
+import org.nuxeo.common.xmap.annotation.XObject;
+import org.nuxeo.common.xmap.registry.XRegistry;
+import org.nuxeo.common.xmap.registry.XRegistryId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A named precondition chain. Values may reference call arguments as {@code ${name}}:
+ * <pre>
+ * &lt;ruleSet id="contractSubmit"&gt;
+ *   &lt;rule check="typeIs" value="${requiredType}" /&gt;
+ *   &lt;rule check="hasProperty" xpath="contract:status" /&gt;
+ * &lt;/ruleSet&gt;
+ * </pre>
+ * Checks: typeIs, pathStartsWith, hasTitle, titleMissingPrefix, hasProperty, propertyEquals. An
+ * {@code optional} rule is skipped when its value resolves blank.
+ */
+@XObject("ruleSet")
+@XRegistry
+public class RuleSetDescriptor {
+
+    @XNode("@id")
+    @XRegistryId
+    protected String id;
+
+    @XNodeList(value = "rule", type = ArrayList.class, componentType = RuleDescriptor.class)
+    protected List<RuleDescriptor> rules = new ArrayList<>();
+
+    public String getId() {
+        return id;
+    }
+
+    public List<RuleDescriptor> getRules() {
+        return rules;
+    }
+
+    @XObject("rule")
+    public static class RuleDescriptor {
+
+        @XNode("@check")
+        protected String check;
+
+        @XNode("@xpath")
+        protected String xpath;
+
+        @XNode(value = "@value", trim = false)
+        protected String value;
+
+        @XNode("@optional")
+        protected boolean optional;
+
+        public String getCheck() {
+            return check;
+        }
+
+        public String getXpath() {
+            return xpath;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public boolean isOptional() {
+            return optional;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ilias.listeners;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.work.NotifyApprovalWork;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.PostCommitFilteringEventListener;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.work.api.Work;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.ilias.listeners.ContractAsyncHandler.CONTRACT_APPROVED;
+
+/**
+ * Turns the approvals of a committed transaction into one {@link NotifyApprovalWork} per chunk of
+ * {@code ilias.notify.chunkSize} documents, instead of one work per document.
+ * <p>
+ * While more than {@code ilias.notify.queue.highWatermark} works wait in the {@code contractNotify} queue,
+ * scheduling pauses, so a mass approval cannot flood the queue faster than the webhook drains it. The pauses of
+ * one bundle add up to at most {@code ilias.notify.backpressure.maxWaitMs}, after which its remaining chunks are
+ * scheduled right away: the commit that fired them is not held back any longer.
+ */
+public class ContractApprovedBundleListener implements PostCommitFilteringEventListener {
+
+    public static final String PROP_CHUNK_SIZE = "ilias.notify.chunkSize";
+    public static final String PROP_HIGH_WATERMARK = "ilias.notify.queue.highWatermark";
+    public static final String PROP_MAX_WAIT_MS = "ilias.notify.backpressure.maxWaitMs";
+
+    private static final long POLL_MS = 50;
+
+    @Override
+    public boolean acceptEvent(Event event) {
+        return CONTRACT_APPROVED.equals(event.getName());
+    }
+
+    @Override
+    public void handleEvent(EventBundle events) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.LISTENER, "contractapprovedbundlelistener")) {
+            Map<String, Set<String>> idsByRepository = new LinkedHashMap<>();
+            for (Event event : events) {
+                if (!acceptEvent(event) || !(event.getContext() instanceof DocumentEventContext)) continue;
+                DocumentModel doc = ((DocumentEventContext) event.getContext()).getSourceDocument();
+                if (doc == null) continue;
+                // a document approved twice in the transaction is notified once
+                idsByRepository.computeIfAbsent(doc.getRepositoryName(), k -> new LinkedHashSet<>()).add(doc.getId());
+            }
+            if (idsByRepository.isEmpty()) {
+                return;
+            }
+
+            int chunkSize = Math.max(1, Integer.parseInt(Framework.getProperty(PROP_CHUNK_SIZE, "500")));
+            int highWatermark = Integer.parseInt(Framework.getProperty(PROP_HIGH_WATERMARK, "200"));
+            long maxWaitMs = Long.parseLong(Framework.getProperty(PROP_MAX_WAIT_MS, "5000"));
+            WorkManager wm = Framework.getService(WorkManager.class);
+            long deadline = System.currentTimeMillis() + maxWaitMs;
+            boolean throttled = highWatermark > 0;
+            for (Map.Entry<String, Set<String>> entry : idsByRepository.entrySet()) {
+                List<String> all = new ArrayList<>(entry.getValue());
+                for (int from = 0; from < all.size(); from += chunkSize) {
+                    List<String> chunk = new ArrayList<>(all.subList(from, Math.min(from + chunkSize, all.size())));
+                    throttled = throttled && awaitCapacity(wm, highWatermark, deadline);
+                    wm.schedule(new NotifyApprovalWork(entry.getKey(), chunk));
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits while the notification queue is above the watermark, until {@code deadline} at the latest; returns
+     * false once the deadline is reached or the thread interrupted, so the bundle's later chunks do not wait.
+     */
+    protected boolean awaitCapacity(WorkManager wm, int highWatermark, long deadline) {
+        String queueId = wm.getCategoryQueueId(NotifyApprovalWork.CATEGORY);
+        while (wm.getQueueSize(queueId, Work.State.SCHEDULED) > highWatermark) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                ContractMetrics.notifyBackpressureTimeout();
+                return false;
+            }
+            try {
+                Thread.sleep(Math.min(POLL_MS, left));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
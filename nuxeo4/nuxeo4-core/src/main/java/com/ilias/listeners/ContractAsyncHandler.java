@@ -1,32 +1,52 @@
 package com.ilias.listeners;
 
-import com.ilias.work.NotifyApprovalWork;
+import com.ilias.metrics.ContractMetrics;
+import io.dropwizard.metrics5.Timer;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.model.Property;
 import org.nuxeo.ecm.core.event.*;
 import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
-import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.runtime.api.Framework;
 
-import static org.nuxeo.ecm.core.api.event.DocumentEventTypes.DOCUMENT_UPDATED;
+import java.util.Objects;
 
+import static org.nuxeo.ecm.core.api.CoreEventConstants.PREVIOUS_DOCUMENT_MODEL;
+import static org.nuxeo.ecm.core.api.event.DocumentEventTypes.BEFORE_DOC_UPDATE;
+
+/**
+ * Fires {@link #CONTRACT_APPROVED} when a save actually moves {@code contract:status} to Approved. Runs before
+ * the write, so the previous value is still known; the event is delivered after commit, with the rest of the
+ * transaction, to {@link ContractApprovedBundleListener}.
+ */
 public class ContractAsyncHandler implements EventListener {
 
     private static final String XPATH_STATUS = "contract:status";
+    private static final String APPROVED = "Approved";
+
+    public static final String CONTRACT_APPROVED = "contractApproved";
 
     @Override
     public void handleEvent(Event event) {
-        if (!(event.getContext() instanceof DocumentEventContext)) return;
-        DocumentEventContext ctx = (DocumentEventContext) event.getContext();
-        DocumentModel doc = ctx.getSourceDocument();
-        if (doc == null || !"Contract".equals(doc.getType())) return;
-        if (!DOCUMENT_UPDATED.equals(event.getName())) return;
-
-        String newStatus = (String) doc.getPropertyValue(XPATH_STATUS);
-        if ("Approved".equals(newStatus)) {
-            WorkManager wm = Framework.getService(WorkManager.class);
-            if (wm != null) {
-                wm.schedule(new NotifyApprovalWork(doc.getRepositoryName(), doc.getId()));
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.LISTENER, "contractasynchandler")) {
+            if (!(event.getContext() instanceof DocumentEventContext)) return;
+            DocumentEventContext ctx = (DocumentEventContext) event.getContext();
+            DocumentModel doc = ctx.getSourceDocument();
+            if (doc == null || !"Contract".equals(doc.getType())) return;
+            if (!BEFORE_DOC_UPDATE.equals(event.getName())) return;
+            if (!doc.hasSchema("contract")) return;
+
+            if (becameApproved(doc, (DocumentModel) ctx.getProperty(PREVIOUS_DOCUMENT_MODEL))) {
+                DocumentEventContext approved = new DocumentEventContext(ctx.getCoreSession(), ctx.getPrincipal(), doc);
+                Framework.getService(EventService.class).fireEvent(approved.newEvent(CONTRACT_APPROVED));
             }
         }
     }
+
+    protected static boolean becameApproved(DocumentModel doc, DocumentModel previous) {
+        Property status = doc.getProperty(XPATH_STATUS);
+        if (!status.isDirty() || !APPROVED.equals(status.getValue())) {
+            return false;
+        }
+        return previous == null || !Objects.equals(APPROVED, previous.getPropertyValue(XPATH_STATUS));
+    }
 }
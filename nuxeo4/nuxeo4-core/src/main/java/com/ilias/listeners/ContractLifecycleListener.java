@@ -1,5 +1,8 @@
 package com.ilias.listeners;
 
+import com.ilias.fp.DocRule;
+import com.ilias.metrics.ContractMetrics;
+import io.dropwizard.metrics5.Timer;
 import org.nuxeo.ecm.core.api.*;
 import org.nuxeo.ecm.core.event.*;
 import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
@@ -10,20 +13,20 @@ public class ContractLifecycleListener implements EventListener {
 
     @Override
     public void handleEvent(Event event) {
-        var ctx = event.getContext();
-        if (!(ctx instanceof DocumentEventContext)) return;
-        var docCtx = (DocumentEventContext) ctx;
-        DocumentModel doc = docCtx.getSourceDocument();
-        if (doc == null || !"Contract".equals(doc.getType())) return;
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.LISTENER, "contractlifecyclelistener")) {
+            var ctx = event.getContext();
+            if (!(ctx instanceof DocumentEventContext)) return;
+            var docCtx = (DocumentEventContext) ctx;
+            DocumentModel doc = docCtx.getSourceDocument();
+            if (doc == null || !"Contract".equals(doc.getType())) return;
 
-        if (doc.getTitle() == null || doc.getTitle().isBlank()) {
-            event.markBubbleException();
-            return;
-        }
-        try {
-            doc.getPropertyValue(XPATH_STATUS);
-        } catch (PropertyException e) {
-            event.markBubbleException();
+            if (doc.getTitle() == null || doc.getTitle().isBlank()) {
+                event.markBubbleException();
+                return;
+            }
+            if (!DocRule.typeHasField(doc.getType(), XPATH_STATUS)) {
+                event.markBubbleException();
+            }
         }
     }
 }
@@ -0,0 +1,28 @@
+package com.ilias.listeners;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.DocumentDefaultsService;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.runtime.api.Framework;
+
+import static org.nuxeo.ecm.core.api.event.DocumentEventTypes.ABOUT_TO_CREATE;
+
+/** Applies the contributed type defaults in memory, so they are part of the document's first write. */
+public class DocumentDefaultsListener implements EventListener {
+
+    @Override
+    public void handleEvent(Event event) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.LISTENER, "documentdefaultslistener")) {
+            if (!ABOUT_TO_CREATE.equals(event.getName())) return;
+            if (!(event.getContext() instanceof DocumentEventContext)) return;
+            DocumentModel doc = ((DocumentEventContext) event.getContext()).getSourceDocument();
+            if (doc == null || doc.isProxy() || doc.isVersion()) return;
+
+            Framework.getService(DocumentDefaultsService.class).applyDefaults(doc);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ilias.listeners;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.PathResolverService;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Drops cached paths at and below a document before it is moved (a rename is a move to the same parent)
+ * and when it is removed.
+ */
+public class PathCacheInvalidationListener implements EventListener {
+
+    @Override
+    public void handleEvent(Event event) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.LISTENER, "pathcacheinvalidationlistener")) {
+            if (!(event.getContext() instanceof DocumentEventContext)) return;
+            DocumentModel doc = ((DocumentEventContext) event.getContext()).getSourceDocument();
+            if (doc == null || doc.getPathAsString() == null) return;
+
+            Framework.getService(PathResolverService.class).invalidate(doc.getRepositoryName(), doc.getPathAsString());
+        }
+    }
+}
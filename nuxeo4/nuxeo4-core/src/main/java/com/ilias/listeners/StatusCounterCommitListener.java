@@ -0,0 +1,70 @@
+package com.ilias.listeners;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.StatusCounterService;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.EventContext;
+import org.nuxeo.ecm.core.event.PostCommitFilteringEventListener;
+import org.nuxeo.runtime.api.Framework;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.ilias.service.interfaces.StatusCounterService.COUNTERS_CHANGED;
+import static com.ilias.service.interfaces.StatusCounterService.DELTAS_PROPERTY;
+import static com.ilias.service.interfaces.StatusCounterService.DROPPED_PROPERTY;
+import static com.ilias.service.interfaces.StatusCounterService.REBUILD_PROPERTY;
+
+/**
+ * Writes the status counter changes recorded by {@link StatusCounterListener} once their transaction has
+ * committed: the deltas of the whole bundle are summed first, so each counter is updated once.
+ */
+public class StatusCounterCommitListener implements PostCommitFilteringEventListener {
+
+    @Override
+    public boolean acceptEvent(Event event) {
+        return COUNTERS_CHANGED.equals(event.getName());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handleEvent(EventBundle events) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.LISTENER, "statuscountercommitlistener")) {
+            Map<String, Long> deltas = new HashMap<>();
+            Set<String> dropped = new LinkedHashSet<>();
+            Map<String, CoreSession> rebuilds = new LinkedHashMap<>(); // copied folder id -> session
+            for (Event event : events) {
+                if (!acceptEvent(event)) continue;
+                EventContext ctx = event.getContext();
+                Map<String, Long> eventDeltas = (Map<String, Long>) ctx.getProperty(DELTAS_PROPERTY);
+                if (eventDeltas != null) {
+                    eventDeltas.forEach((key, delta) -> deltas.merge(key, delta, Long::sum));
+                }
+                Collection<String> eventDropped = (Collection<String>) ctx.getProperty(DROPPED_PROPERTY);
+                if (eventDropped != null) {
+                    dropped.addAll(eventDropped);
+                }
+                String rebuild = (String) ctx.getProperty(REBUILD_PROPERTY);
+                if (rebuild != null) {
+                    rebuilds.put(rebuild, ctx.getCoreSession());
+                }
+            }
+            StatusCounterService counters = Framework.getService(StatusCounterService.class);
+            counters.apply(deltas, dropped);
+            rebuilds.forEach((folderId, session) -> {
+                IdRef folder = new IdRef(folderId);
+                if (session.exists(folder)) { // removed again later in the same transaction
+                    counters.rebuild(session, folder);
+                }
+            });
+        }
+    }
+}
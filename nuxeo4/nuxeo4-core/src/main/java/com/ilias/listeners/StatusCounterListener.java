@@ -0,0 +1,60 @@
+package com.ilias.listeners;
+
+import com.ilias.fp.DocRule;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.StatusCounterService;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.model.Property;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.runtime.api.Framework;
+
+import java.util.Objects;
+
+import static org.nuxeo.ecm.core.api.CoreEventConstants.PREVIOUS_DOCUMENT_MODEL;
+import static org.nuxeo.ecm.core.api.event.DocumentEventTypes.*;
+
+/**
+ * Records the per-folder status counter changes of creations, copies, status changes, moves and removals; they
+ * are written by {@link StatusCounterCommitListener} once the transaction commits. Moves are handled as a
+ * removal from the old ancestors before the move and an addition after it.
+ */
+public class StatusCounterListener implements EventListener {
+
+    private static final String XPATH_STATUS = "contract:status";
+
+    @Override
+    public void handleEvent(Event event) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.LISTENER, "statuscounterlistener")) {
+            if (!(event.getContext() instanceof DocumentEventContext)) return;
+            DocumentEventContext ctx = (DocumentEventContext) event.getContext();
+            DocumentModel doc = ctx.getSourceDocument();
+            if (doc == null || doc.isProxy() || doc.isVersion()) return;
+
+            CoreSession session = ctx.getCoreSession();
+            StatusCounterService counters = Framework.getService(StatusCounterService.class);
+            switch (event.getName()) {
+                case DOCUMENT_CREATED, DOCUMENT_MOVED -> counters.documentAdded(session, doc);
+                case DOCUMENT_CREATED_BY_COPY -> counters.documentCopied(session, doc);
+                case ABOUT_TO_MOVE -> counters.documentRemoved(session, doc, false);
+                case ABOUT_TO_REMOVE -> counters.documentRemoved(session, doc, true);
+                case BEFORE_DOC_UPDATE -> {
+                    if (!DocRule.typeHasField(doc.getType(), XPATH_STATUS)) return;
+                    Property status = doc.getProperty(XPATH_STATUS);
+                    if (!status.isDirty()) return;
+                    DocumentModel previous = (DocumentModel) ctx.getProperty(PREVIOUS_DOCUMENT_MODEL);
+                    String from = previous == null ? null : (String) previous.getPropertyValue(XPATH_STATUS);
+                    String to = (String) status.getValue();
+                    if (!Objects.equals(from, to)) {
+                        counters.statusChanged(session, doc, from, to);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ilias.metrics;
+
+import io.dropwizard.metrics5.Gauge;
+import io.dropwizard.metrics5.MetricName;
+import io.dropwizard.metrics5.MetricRegistry;
+import io.dropwizard.metrics5.SharedMetricRegistries;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+/**
+ * Contract metrics, registered in the Nuxeo shared registry so the platform reporters (JMX, Prometheus, ...)
+ * pick them up:
+ * <ul>
+ * <li>{@code nuxeo.contract.<kind>.timer{name=...}} for operations, listeners, service calls and works</li>
+ * <li>{@code nuxeo.contract.bulk.scanned} / {@code nuxeo.contract.bulk.changed} / {@code nuxeo.contract.bulk.loaded}
+ * {call=...} document counters</li>
+ * <li>{@code nuxeo.contract.transition.retries} / {@code nuxeo.contract.transition.conflicts} change token races</li>
+ * <li>{@code nuxeo.contract.webhook.timer} and {@code nuxeo.contract.webhook.failures}</li>
+ * <li>{@code nuxeo.contract.notify.queue} gauges</li>
+ * <li>{@code nuxeo.contract.pathcache} gauges (hits, misses, evictions, size)</li>
+ * </ul>
+ */
+public final class ContractMetrics {
+
+    private ContractMetrics() {}
+
+    public static final String PREFIX = "nuxeo.contract";
+
+    public static final String OPERATION = "operation";
+    public static final String LISTENER = "listener";
+    public static final String SERVICE = "service";
+    public static final String WORK = "work";
+
+    private static final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    /** Starts a timer for one operation, listener, service method or work; close the context to record it. */
+    public static Timer.Context time(String kind, String name) {
+        return registry.timer(MetricName.build(PREFIX, kind, "timer").tagged("name", name)).time();
+    }
+
+    /** Documents looked at by a bulk call. */
+    public static void scanned(String call, long count) {
+        registry.counter(MetricName.build(PREFIX, "bulk", "scanned").tagged("call", call)).inc(count);
+    }
+
+    /** Documents actually written by a bulk call. */
+    public static void changed(String call, long count) {
+        registry.counter(MetricName.build(PREFIX, "bulk", "changed").tagged("call", call)).inc(count);
+    }
+
+    /** Documents a bulk call had to load in full, beyond its projection query. */
+    public static void loaded(String call, long count) {
+        registry.counter(MetricName.build(PREFIX, "bulk", "loaded").tagged("call", call)).inc(count);
+    }
+
+    /** A status transition lost a change token race and is retried. */
+    public static void transitionRetry() {
+        registry.counter(MetricName.build(PREFIX, "transition", "retries")).inc();
+    }
+
+    /** A status transition gave up after losing every attempt. */
+    public static void transitionConflict() {
+        registry.counter(MetricName.build(PREFIX, "transition", "conflicts")).inc();
+    }
+
+    public static Timer.Context timeWebhook() {
+        return registry.timer(MetricName.build(PREFIX, "webhook", "timer")).time();
+    }
+
+    public static void webhookFailure(long events) {
+        registry.counter(MetricName.build(PREFIX, "webhook", "failures")).inc();
+        registry.counter(MetricName.build(PREFIX, "webhook", "dropped")).inc(events);
+    }
+
+    public static void notifyBackpressureTimeout() {
+        registry.counter(MetricName.build(PREFIX, "notify", "backpressure", "timeouts")).inc();
+    }
+
+    /** Registers (or replaces) a notification queue gauge, e.g. {@code scheduled} or {@code pending}. */
+    public static void registerQueueGauge(String name, Gauge<Long> gauge) {
+        MetricName metricName = MetricName.build(PREFIX, "notify", "queue").tagged("name", name);
+        registry.remove(metricName);
+        registry.register(metricName, gauge);
+    }
+
+    public static void removeQueueGauge(String name) {
+        registry.remove(MetricName.build(PREFIX, "notify", "queue").tagged("name", name));
+    }
+
+    /** Registers (or replaces) a path cache gauge. */
+    public static void registerCacheGauge(String name, Gauge<Long> gauge) {
+        MetricName metricName = MetricName.build(PREFIX, "pathcache").tagged("name", name);
+        registry.remove(metricName);
+        registry.register(metricName, gauge);
+    }
+
+    public static void removeCacheGauge(String name) {
+        registry.remove(MetricName.build(PREFIX, "pathcache").tagged("name", name));
+    }
+}
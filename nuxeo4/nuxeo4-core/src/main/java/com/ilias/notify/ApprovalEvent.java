@@ -0,0 +1,38 @@
+package com.ilias.notify;
+
+/** One approved contract, as sent to the webhook. */
+public record ApprovalEvent(String id, String title, String path, String status) {
+    public ApprovalEvent {
+        id = id == null ? "" : id;
+        title = title == null ? "" : title;
+        path = path == null ? "" : path;
+        status = status == null ? "" : status;
+    }
+
+    public String toJson() {
+        return "{\"id\":\"" + escape(id) + "\",\"title\":\"" + escape(title) + "\",\"path\":\"" + escape(path)
+                + "\",\"status\":\"" + escape(status) + "\"}";
+    }
+
+    static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
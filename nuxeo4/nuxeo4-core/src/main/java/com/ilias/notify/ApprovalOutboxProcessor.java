@@ -0,0 +1,108 @@
+package com.ilias.notify;
+
+import static org.nuxeo.lib.stream.computation.AbstractComputation.INPUT_1;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.WebhookNotifier;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.lib.stream.computation.AbstractComputation;
+import org.nuxeo.lib.stream.computation.ComputationContext;
+import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.Topology;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.stream.StreamProcessorTopology;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ships the approvals appended to the {@link #STREAM} outbox to the webhook. Records are buffered up to
+ * {@code batchSize} or for {@code windowMs}, posted as one array, and the offset is checkpointed only once the
+ * post succeeded: a failed post is retried by the processor policy and, past it, replayed on restart.
+ */
+public class ApprovalOutboxProcessor implements StreamProcessorTopology {
+
+    public static final String NAME = "contractApprovalOutbox";
+    public static final String STREAM = "contract/approvals";
+
+    @Override
+    public Topology getTopology(Map<String, String> options) {
+        int batchSize = Integer.parseInt(options.getOrDefault("batchSize", "100"));
+        long windowMs = Long.parseLong(options.getOrDefault("windowMs", "2000"));
+        return Topology.builder()
+                       .addComputation(() -> new ApprovalOutboxComputation(batchSize, windowMs),
+                               Collections.singletonList(INPUT_1 + ":" + STREAM))
+                       .build();
+    }
+
+    /** Encodes an approval as an outbox record, keyed by document so its events stay in one partition. */
+    public static Record toRecord(ApprovalEvent event) {
+        return Record.of(event.id(), event.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static class ApprovalOutboxComputation extends AbstractComputation {
+
+        private static final String TIMER = "flush";
+
+        protected final int batchSize;
+        protected final long windowMs;
+        protected final List<String> buffer = new ArrayList<>();
+
+        public ApprovalOutboxComputation(int batchSize, long windowMs) {
+            super(NAME, 1, 0);
+            this.batchSize = Math.max(1, batchSize);
+            this.windowMs = Math.max(1, windowMs);
+        }
+
+        @Override
+        public void init(ComputationContext context) {
+            context.setTimer(TIMER, System.currentTimeMillis() + windowMs);
+        }
+
+        @Override
+        public void processRecord(ComputationContext context, String inputStreamName, Record record) {
+            buffer.add(new String(record.getData(), StandardCharsets.UTF_8));
+            if (buffer.size() < batchSize) {
+                return;
+            }
+            try {
+                ship(context);
+            } catch (RuntimeException e) {
+                // the policy hands the same record again on retry
+                buffer.remove(buffer.size() - 1);
+                throw e;
+            }
+        }
+
+        @Override
+        public void processTimer(ComputationContext context, String key, long timestamp) {
+            try {
+                if (!buffer.isEmpty()) {
+                    ship(context);
+                }
+            } finally {
+                context.setTimer(TIMER, System.currentTimeMillis() + windowMs);
+            }
+        }
+
+        protected void ship(ComputationContext context) {
+            try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.WORK, NAME)) {
+                deliver(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+            context.askForCheckpoint();
+        }
+
+        /** Posts the buffered approvals; returns only once the webhook accepted them. */
+        protected void deliver(List<String> jsonEvents) throws IOException {
+            Framework.getService(WebhookNotifier.class).deliver(jsonEvents);
+        }
+    }
+}
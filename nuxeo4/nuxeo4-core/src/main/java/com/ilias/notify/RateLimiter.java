@@ -0,0 +1,42 @@
+package com.ilias.notify;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces calls to at most {@code permitsPerSecond}, one permit at a time. Callers block in {@link #acquire},
+ * which is cheap on virtual threads. Whoever creates the batchers shares one limiter between those posting to
+ * the same endpoint.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+
+    private long nextFree;
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    /** Blocks until the next permit; returns false if interrupted while waiting. */
+    public boolean acquire() {
+        if (intervalNanos == 0) {
+            return true;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFree);
+            nextFree = start + intervalNanos;
+            wait = start - now;
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,268 @@
+package com.ilias.notify;
+
+import com.ilias.metrics.ContractMetrics;
+import io.dropwizard.metrics5.Timer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces approval events and POSTs them as one JSON array, either when {@code maxBatchSize} events are
+ * pending or {@code window} after the first pending one. A single keep-alive {@link HttpClient} is reused,
+ * and failed posts (IO errors, 429, 5xx) are retried with exponential backoff.
+ * <p>
+ * Posts, retries and backoff run on virtual threads, paced by the given {@link RateLimiter}. At most
+ * {@code maxInFlight} batches are outstanding: past that, {@link #submit} blocks, which slows the notification
+ * works and lets their queue absorb the backlog.
+ */
+public class WebhookBatcher implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(WebhookBatcher.class.getName());
+
+    private final HttpClient client;
+    private final URI uri;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService io;
+    private final Semaphore inFlight;
+    private final Set<CompletableFuture<Void>> outstanding = ConcurrentHashMap.newKeySet();
+    private final RateLimiter rateLimiter;
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+
+    private final Object lock = new Object();
+    private List<ApprovalEvent> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final AtomicLong sentBatches = new AtomicLong();
+    private final AtomicLong sentEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+
+    public WebhookBatcher(URI uri, int maxBatchSize, Duration window, int maxRetries, Duration initialBackoff) {
+        this(uri, maxBatchSize, window, maxRetries, initialBackoff, DEFAULT_MAX_IN_FLIGHT, null);
+    }
+
+    /**
+     * @param maxInFlight batches posted or waiting for a retry at the same time
+     * @param rateLimiter paces the requests to the endpoint, {@code null} for no limit
+     */
+    public WebhookBatcher(URI uri, int maxBatchSize, Duration window, int maxRetries, Duration initialBackoff,
+            int maxInFlight, RateLimiter rateLimiter) {
+        this.uri = uri;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.window = window;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialBackoff = initialBackoff;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.rateLimiter = rateLimiter == null ? new RateLimiter(0) : rateLimiter;
+        this.io = Executors.newVirtualThreadPerTaskExecutor();
+        this.client = HttpClient.newBuilder()
+                                .version(HttpClient.Version.HTTP_1_1)
+                                .connectTimeout(Duration.ofSeconds(10))
+                                .executor(io)
+                                .build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "contract-webhook-flush");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Queues an event; a full batch is handed to a virtual thread right away. */
+    public void submit(ApprovalEvent event) {
+        List<ApprovalEvent> full = null;
+        synchronized (lock) {
+            pending.add(event);
+            if (pending.size() >= maxBatchSize) {
+                full = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flushAsync, window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+    }
+
+    /** Sends whatever is pending and waits until every batch handed out so far is delivered or dropped. */
+    public void flush() {
+        List<ApprovalEvent> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+        CompletableFuture.allOf(outstanding.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /** Window flush from the scheduler thread: hands the batch out without waiting for it. */
+    private void flushAsync() {
+        List<ApprovalEvent> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<ApprovalEvent> batch) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped(batch, "interrupted");
+            return;
+        }
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> send(batch), io);
+        outstanding.add(future);
+        future.whenComplete((r, t) -> {
+            outstanding.remove(future);
+            inFlight.release();
+        });
+    }
+
+    private List<ApprovalEvent> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<ApprovalEvent> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    protected void send(List<ApprovalEvent> batch) {
+        String body = batch.stream().map(ApprovalEvent::toJson).collect(Collectors.joining(",", "[", "]"));
+        String error = attempt(body, batch.size());
+        if (error != null) {
+            dropped(batch, error);
+        }
+    }
+
+    /**
+     * Posts a JSON array of {@code events} approvals on the calling thread, with the same pacing and retries as
+     * batched sends. Nothing is dropped: once the retries are exhausted the caller gets the failure and keeps
+     * the events.
+     */
+    public void post(String body, int events) throws IOException {
+        String error = attempt(body, events);
+        if (error != null) {
+            throw new IOException("Webhook delivery of " + events + " approvals failed: " + error);
+        }
+    }
+
+    /** @return {@code null} once delivered, otherwise the last error */
+    private String attempt(String body, int events) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                                         .timeout(Duration.ofSeconds(30))
+                                         .header("Content-Type", "application/json")
+                                         .POST(HttpRequest.BodyPublishers.ofString(body))
+                                         .build();
+        long backoff = initialBackoff.toMillis();
+        String error;
+        for (int attempt = 0;; attempt++) {
+            if (!rateLimiter.acquire()) {
+                error = "interrupted";
+                break;
+            }
+            try (Timer.Context ignored = ContractMetrics.timeWebhook()) {
+                int code = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (code >= 200 && code < 300) {
+                    sentBatches.incrementAndGet();
+                    sentEvents.addAndGet(events);
+                    return null;
+                }
+                error = "HTTP " + code + " from webhook";
+                if (code != 429 && code < 500) {
+                    break; // client error, retrying will not help
+                }
+            } catch (IOException e) {
+                error = e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
+                break;
+            }
+            if (attempt >= maxRetries || !sleep(backoff)) {
+                break;
+            }
+            backoff *= 2;
+        }
+        return error;
+    }
+
+    private void dropped(List<ApprovalEvent> batch, String error) {
+        failedEvents.addAndGet(batch.size());
+        ContractMetrics.webhookFailure(batch.size());
+        log.warning("WebhookBatcher: dropped " + batch.size() + " approvals after failure: " + error);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /** Batches being posted or waiting for a retry. */
+    public int getInFlightCount() {
+        return outstanding.size();
+    }
+
+    public long getSentBatches() {
+        return sentBatches.get();
+    }
+
+    public long getSentEvents() {
+        return sentEvents.get();
+    }
+
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        scheduler.shutdown();
+        io.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            io.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.ilias.ops;
+
+import com.ilias.core.SubmitCore;
+import com.ilias.core.SubmitCore.DocPatch;
+import com.ilias.core.SubmitCore.DocView;
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.fp.CompiledRuleSet;
+import com.ilias.fp.CompiledRuleSet.Evaluator;
+import com.ilias.fp.DocRule;
+import com.ilias.fp.DocRule.Rule;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.query.ContractQueries;
+import com.ilias.service.interfaces.RuleSetService;
+import com.ilias.service.interfaces.StatusJobService;
+
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.*;
+import org.nuxeo.ecm.core.api.scroll.Scroll;
+import org.nuxeo.ecm.core.api.scroll.ScrollRequest;
+import org.nuxeo.ecm.core.api.scroll.ScrollService;
+import org.nuxeo.ecm.core.scroll.DocumentScrollRequest;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+import org.nuxeo.ecm.core.query.sql.NXQL;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Parameters and sweep shared by {@link OpChangeStatus}, which returns the changed documents, and
+ * {@link OpChangeStatusReport}, which returns a count, ids, a page cursor or a job id instead.
+ */
+public abstract class AbstractChangeStatusOperation {
+
+    @Context
+    protected CoreSession session;
+
+    @Context
+    protected RuleSetService ruleSets;
+
+    @Param(name = "path")
+    protected String path;
+
+    @Param(name = "requiredType", required = false)
+    protected String requiredType = "Contract";
+
+    @Param(name = "targetStatus", required = false)
+    protected String targetStatus = "Approved";
+
+    @Param(name = "enforceContractType", required = false)
+    protected boolean enforceType = true;
+
+    @Param(name = "onlyIfCurrentStatus", required = false)
+    protected String onlyIfCurrentStatus = "";
+
+    /** Rule set selecting the documents; its {@code ${...}} values are bound from the parameters above. */
+    @Param(name = "ruleSet", required = false)
+    protected String ruleSet = DEFAULT_RULE_SET;
+
+    /** Scroll the results and commit every {@code batchSize} documents instead of one big transaction. */
+    @Param(name = "streaming", required = false)
+    protected boolean streaming = false;
+
+    @Param(name = "batchSize", required = false)
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Split the subtree into one partition per child folder (plus one for the direct children) and process
+     * them concurrently, each with its own session and transactions.
+     */
+    @Param(name = "parallel", required = false)
+    protected boolean parallel = false;
+
+    /** Concurrent partitions in parallel mode; {@code 0} picks {@link #defaultParallelism()}. */
+    @Param(name = "parallelism", required = false)
+    protected int parallelism = 0;
+
+    public static final String XPATH_STATUS = "contract:status";
+    public static final String DEFAULT_RULE_SET = "contractChangeStatus";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final String BLANK_PREFIX = ""; // ensures SubmitCore won't touch titles
+    public static final String[] COLUMNS = { NXQL.ECM_UUID, NXQL.ECM_PRIMARYTYPE, XPATH_STATUS };
+
+    /** Metric name of the concrete operation. */
+    protected abstract String operationId();
+
+    /** The rule set bound to the parameters; the NXQL part selects, the whole chain is checked on each document. */
+    protected Evaluator evaluator() throws OperationException {
+        if (path == null || path.isBlank()) {
+            throw new OperationException("Parameter 'path' is required");
+        }
+        CompiledRuleSet rules = ruleSets.getRuleSet(ruleSet);
+        if (rules == null) {
+            throw new OperationException("Unknown rule set: " + ruleSet);
+        }
+        return rules.bind(args());
+    }
+
+    protected Map<String, String> args() {
+        Map<String, String> args = new HashMap<>();
+        args.put("path", path);
+        args.put("requiredType", requiredType);
+        args.put("onlyIfCurrentStatus", onlyIfCurrentStatus);
+        return args;
+    }
+
+    /** Starts a resumable {@link StatusJobService} job over the selection and returns its id. */
+    protected String startJob() throws OperationException {
+        Evaluator evaluator = evaluator();
+        SubmitParams params = new SubmitParams(requiredType, targetStatus, BLANK_PREFIX, enforceType);
+        return Framework.getService(StatusJobService.class)
+                        .start(session, selection(evaluator.toRule(), path), params, ruleSet, args());
+    }
+
+    /** Changes the status of the selection and returns what {@code mode} asks for. */
+    protected Object change(ChangeCollector.Mode mode, int pageSize) throws OperationException {
+        Evaluator evaluator = evaluator();
+        Rule rule = evaluator.toRule();
+        // only a plain run keeps the saved documents, the others commit as they go and reload on access
+        try (ChangeCollector changes = ChangeCollector.create(mode, session, !parallel && !streaming, pageSize)) {
+            if (!DocRule.isKnownField(XPATH_STATUS)) {
+                return changes.result(); // no document type can carry the status field
+            }
+
+            SubmitParams params = new SubmitParams(requiredType, targetStatus, BLANK_PREFIX, enforceType);
+
+            if (parallel) {
+                runParallel(ruleSets.getRuleSet(ruleSet), args(), params, changes);
+            } else if (streaming) {
+                scrollAndApply(session, selection(rule, path), params, evaluator::test, changes);
+            } else {
+                // only the columns the plan needs, full documents are loaded for the ones that change
+                String nxql = DocRule.selectColumns(selection(rule, path), COLUMNS);
+                PartialList<Map<String, Serializable>> rows = session.queryProjection(nxql, 0, 0);
+                long changed = 0;
+                for (Map<String, Serializable> row : rows) {
+                    Optional<DocumentModel> saved = apply(session, row, params, evaluator::test);
+                    if (saved.isPresent()) {
+                        changes.add(saved.get());
+                        changed++;
+                    }
+                }
+                ContractMetrics.scanned(operationId(), rows.size());
+                ContractMetrics.changed(operationId(), changed);
+
+                session.save();
+            }
+            return changes.result();
+        } catch (IOException e) {
+            throw new OperationException(e);
+        }
+    }
+
+    /**
+     * Runs each partition of the subtree on its own thread, session and transactions, all feeding the same
+     * collector. A failing partition fails the call, but partitions already committed stay committed.
+     */
+    protected void runParallel(CompiledRuleSet rules, Map<String, String> args, SubmitParams params,
+            ChangeCollector changes) throws OperationException {
+        PathRef root = new PathRef(path);
+        if (!session.exists(root)) {
+            return;
+        }
+        String rootId = session.getDocument(root).getId();
+        String repositoryName = session.getRepositoryName();
+        NuxeoPrincipal principal = session.getPrincipal();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        // direct children, then everything below each child folder
+        Evaluator children = rules.bind(args);
+        String direct = DocRule.select("*", "Document", children.toRule(),
+                "ecm:isProxy = 0 AND ecm:parentId = " + DocRule.literal(rootId));
+        tasks.add(partition(repositoryName, principal, direct, params, children::test, changes));
+        String folders = "SELECT ecm:path FROM Document WHERE ecm:parentId = " + DocRule.literal(rootId)
+                + " AND ecm:mixinType = 'Folderish' AND ecm:isProxy = 0";
+        for (Map<String, Serializable> folder : session.queryProjection(folders, 0, 0)) {
+            Map<String, String> partitionArgs = new HashMap<>(args);
+            String folderPath = (String) folder.get(NXQL.ECM_PATH);
+            partitionArgs.put("path", folderPath);
+            Evaluator below = rules.bind(partitionArgs);
+            tasks.add(partition(repositoryName, principal, selection(below.toRule(), folderPath), params,
+                    below::test, changes));
+        }
+
+        int threads = Math.min(parallelism > 0 ? parallelism : defaultParallelism(), tasks.size());
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (Future<Void> partition : executor.invokeAll(tasks)) {
+                partition.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationException(e);
+        } catch (ExecutionException e) {
+            throw new OperationException("Status change failed in a partition of " + path, e.getCause());
+        }
+    }
+
+    protected Callable<Void> partition(String repositoryName, NuxeoPrincipal principal, String nxql,
+            SubmitParams params, Predicate<DocumentModel> accept, ChangeCollector changes) {
+        return () -> {
+            TransactionHelper.runInTransaction(() -> scrollAndApply(
+                    CoreInstance.getCoreSession(repositoryName, principal), nxql, params, accept, changes));
+            return null;
+        };
+    }
+
+    /**
+     * The documents to sweep under {@code root}. When the default rule set selects contracts in a given status,
+     * that is exactly the {@link ContractQueries#BY_PATH_AND_STATUS} page provider, which binds its parameters
+     * and filters on the indexed status; any other selection is the NXQL rendered from the rule set, always
+     * scoped to {@code root} even when the rule set has no path check of its own.
+     */
+    protected String selection(Rule rule, String root) {
+        if (DEFAULT_RULE_SET.equals(ruleSet) && "Contract".equals(requiredType) && onlyIfCurrentStatus != null
+                && !onlyIfCurrentStatus.isBlank()) {
+            return ContractQueries.nxql(ContractQueries.BY_PATH_AND_STATUS, root, onlyIfCurrentStatus);
+        }
+        return DocRule.select("*", "Document", rule.and(DocRule.pathStartsWith(root)), "ecm:isProxy = 0");
+    }
+
+    /** Cores, capped to half the connection pool so the partitions leave room for the rest of the server. */
+    protected static int defaultParallelism() {
+        int pool = Integer.parseInt(Framework.getProperty("nuxeo.db.max-pool-size", "20"));
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), pool / 2));
+    }
+
+    /**
+     * Walks the ids with the repository scroll API, projects and updates one batch at a time and commits
+     * after each batch, handing the changed documents to {@code changes}.
+     */
+    protected void scrollAndApply(CoreSession session, String nxql, SubmitParams params,
+            Predicate<DocumentModel> accept, ChangeCollector changes) {
+        int size = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        ScrollRequest request = DocumentScrollRequest.builder(nxql)
+                                                     .repository(session.getRepositoryName())
+                                                     .username(session.getPrincipal().getName())
+                                                     .size(size)
+                                                     .build();
+        try (Scroll scroll = Framework.getService(ScrollService.class).scroll(request)) {
+            while (scroll.hasNext()) {
+                String batch = DocRule.select(String.join(", ", COLUMNS), "Document", DocRule.idIn(scroll.next()), null);
+                long changed = 0;
+                PartialList<Map<String, Serializable>> rows = session.queryProjection(batch, 0, 0);
+                for (Map<String, Serializable> row : rows) {
+                    Optional<DocumentModel> saved = apply(session, row, params, accept);
+                    if (saved.isPresent()) {
+                        changes.add(saved.get());
+                        changed++;
+                    }
+                }
+                ContractMetrics.scanned(operationId(), rows.size());
+                ContractMetrics.changed(operationId(), changed);
+                session.save();
+                if (TransactionHelper.isTransactionActive()) {
+                    TransactionHelper.commitOrRollbackTransaction();
+                    TransactionHelper.startTransaction();
+                }
+            }
+        }
+    }
+
+    /**
+     * Plans the status change for one projected row and saves the document; empty when nothing changed. The
+     * document is loaded only when the plan changes it, and left alone when {@code accept} rejects it: the query
+     * only renders the NXQL part of the rule set, the in-memory checks are made here.
+     */
+    protected Optional<DocumentModel> apply(CoreSession session, Map<String, Serializable> row, SubmitParams params,
+            Predicate<DocumentModel> accept) {
+        Optional<String> proposed = plan(row, params);
+        if (proposed.isEmpty()) {
+            return Optional.empty();
+        }
+        DocumentModel doc = session.getDocument(new IdRef((String) row.get(NXQL.ECM_UUID)));
+        if (!accept.test(doc)) {
+            return Optional.empty();
+        }
+        doc.setPropertyValue(XPATH_STATUS, proposed.get());
+        DocumentModel saved = session.saveDocument(doc);
+        return Optional.of(saved);
+    }
+
+    /**
+     * The status a projected row ({@link #COLUMNS}) would be moved to, empty when the document is left alone:
+     * no status field, rejected by the plan or already in the planned status. Reads nothing else, writes nothing.
+     */
+    public static Optional<String> plan(Map<String, Serializable> row, SubmitParams params) {
+        String type = (String) row.get(NXQL.ECM_PRIMARYTYPE);
+        boolean hasStatus = DocRule.typeHasField(type, XPATH_STATUS);
+        if (!hasStatus) {
+            return Optional.empty();
+        }
+        DocView view = DocView.fromRow(row, hasStatus);
+
+        final DocPatch patch;
+        try {
+            patch = SubmitCore.DocPatch.plan(view, params);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        if (patch.newStatus().isEmpty()) {
+            return Optional.empty();
+        }
+
+        String proposed = patch.newStatus().get();
+        String current = (String) row.get(XPATH_STATUS);
+
+        if (Objects.equals(current, proposed)) {
+            return Optional.empty();
+        }
+        return Optional.of(proposed);
+    }
+
+    /** Read-only list over document ids, fetching each document only when it is accessed. */
+    protected static class LazyDocumentList extends AbstractList<DocumentModel> implements DocumentModelList {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient CoreSession session;
+        private final List<String> ids;
+
+        protected LazyDocumentList(CoreSession session, List<String> ids) {
+            this.session = session;
+            this.ids = ids;
+        }
+
+        @Override
+        public DocumentModel get(int index) {
+            return session.getDocument(new IdRef(ids.get(index)));
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+
+        @Override
+        public long totalSize() {
+            return ids.size();
+        }
+    }
+}
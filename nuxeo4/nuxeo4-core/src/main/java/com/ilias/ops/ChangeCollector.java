@@ -0,0 +1,264 @@
+package com.ilias.ops;
+
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.kv.KeyValueService;
+import org.nuxeo.runtime.kv.KeyValueStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Receives the documents changed by {@link AbstractChangeStatusOperation} and builds the result the caller asked for, keeping
+ * no more than that result needs. {@link #add} may be called from several partitions at once.
+ */
+public abstract class ChangeCollector implements AutoCloseable {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * KeyValueService store keeping the changed ids of the {@code page} mode: {@code <cursor>:<n>} holds the
+     * n-th chunk of ids, one per line, and {@code <cursor>} "count,idsPerKey", written last once the run is done.
+     */
+    public static final String CURSOR_STORE = "contractChangeResults";
+
+    public static final String PROP_CURSOR_TTL_SECONDS = "ilias.changestatus.cursorTtlSeconds";
+
+    /** Ids per key of a cursor, so neither the run nor a page read holds more than a chunk of them */
+    public static final String PROP_IDS_PER_KEY = "ilias.changestatus.idsPerKey";
+
+    public enum Mode {
+        /** the changed documents, the output of {@link OpChangeStatus} */
+        DOCUMENTS,
+        /** {"changed":n} */
+        COUNT,
+        /** a text blob, one changed id per line, written to disk as the change progresses */
+        IDS,
+        /**
+         * {"cursor":"...","resultsCount":n,"pageSize":p}: the changed ids are stored under the cursor, the
+         * documents are read a page at a time through {@link OpChangeStatusResults}
+         */
+        PAGE;
+
+        public static Mode of(String name) throws OperationException {
+            try {
+                return name == null || name.isBlank() ? DOCUMENTS : valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new OperationException("Unknown resultMode: " + name);
+            }
+        }
+    }
+
+    /**
+     * @param keepDocuments in {@link Mode#DOCUMENTS}, return the saved documents as is instead of reloading them
+     *            by id on access
+     */
+    public static ChangeCollector create(Mode mode, CoreSession session, boolean keepDocuments, int pageSize)
+            throws OperationException {
+        try {
+            return switch (mode) {
+                case DOCUMENTS -> keepDocuments ? new Documents()
+                        : new Ids(ids -> new AbstractChangeStatusOperation.LazyDocumentList(session, ids));
+                case COUNT -> new Count();
+                case IDS -> new IdBlob();
+                case PAGE -> new Pages(pageSize);
+            };
+        } catch (IOException e) {
+            throw new OperationException(e);
+        }
+    }
+
+    public abstract void add(DocumentModel saved);
+
+    public abstract Object result() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    /** Ids of one page of a cursor and the number of ids under it */
+    public record CursorPage(List<String> ids, long resultsCount) {
+    }
+
+    /**
+     * The ids of page {@code pageIndex} of a {@link Mode#PAGE} run, reading only the chunks the page spans;
+     * null when the cursor is unknown, not complete yet or expired.
+     */
+    public static CursorPage readPage(String cursor, long pageIndex, int pageSize) {
+        KeyValueStore store = cursorStore();
+        String header = store.getString(cursor);
+        if (header == null) {
+            return null;
+        }
+        String[] counts = header.split(",");
+        long total = Long.parseLong(counts[0]);
+        int perKey = Integer.parseInt(counts[1]); // as written, whatever the property says now
+        long from = Math.min(pageIndex * pageSize, total);
+        long to = Math.min(from + pageSize, total);
+        List<String> ids = new ArrayList<>();
+        for (long n = from / perKey; n * perKey < to; n++) {
+            String chunk = store.getString(cursor + ":" + n);
+            if (chunk == null) {
+                return null; // expired in the meantime
+            }
+            List<String> chunkIds = List.of(chunk.split("\n"));
+            long base = n * perKey;
+            ids.addAll(chunkIds.subList((int) Math.max(0, from - base), (int) Math.min(chunkIds.size(), to - base)));
+        }
+        return new CursorPage(ids, total);
+    }
+
+    protected static int idsPerKey() {
+        return Math.max(1, Integer.parseInt(Framework.getProperty(PROP_IDS_PER_KEY, "1000")));
+    }
+
+    protected static KeyValueStore cursorStore() {
+        return Framework.getService(KeyValueService.class).getKeyValueStore(CURSOR_STORE);
+    }
+
+    protected static class Documents extends ChangeCollector {
+
+        protected final List<DocumentModel> docs = new ArrayList<>();
+
+        @Override
+        public synchronized void add(DocumentModel saved) {
+            docs.add(saved);
+        }
+
+        @Override
+        public synchronized Object result() {
+            return new DocumentModelListImpl(docs);
+        }
+    }
+
+    protected static class Ids extends ChangeCollector {
+
+        protected final List<String> ids = new ArrayList<>();
+
+        protected final Function<List<String>, Object> finisher;
+
+        protected Ids(Function<List<String>, Object> finisher) {
+            this.finisher = finisher;
+        }
+
+        @Override
+        public synchronized void add(DocumentModel saved) {
+            ids.add(saved.getId());
+        }
+
+        @Override
+        public synchronized Object result() {
+            return finisher.apply(ids);
+        }
+    }
+
+    /** Writes the ids under a new cursor a chunk at a time, as they come. */
+    protected static class Pages extends ChangeCollector {
+
+        protected final String cursor = UUID.randomUUID().toString();
+
+        protected final long ttl = Long.parseLong(Framework.getProperty(PROP_CURSOR_TTL_SECONDS, "3600"));
+
+        protected final int perKey = idsPerKey();
+
+        protected final int pageSize;
+
+        protected final List<String> chunk = new ArrayList<>();
+
+        protected long chunks;
+
+        protected long count;
+
+        protected Pages(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public synchronized void add(DocumentModel saved) {
+            chunk.add(saved.getId());
+            count++;
+            if (chunk.size() >= perKey) {
+                flush();
+            }
+        }
+
+        protected void flush() {
+            if (!chunk.isEmpty()) {
+                cursorStore().put(cursor + ":" + chunks++, String.join("\n", chunk), ttl);
+                chunk.clear();
+            }
+        }
+
+        @Override
+        public synchronized Object result() {
+            flush();
+            cursorStore().put(cursor, count + "," + perKey, ttl);
+            return Blobs.createJSONBlob(
+                    String.format("{\"cursor\":\"%s\",\"resultsCount\":%d,\"pageSize\":%d}", cursor, count, pageSize));
+        }
+    }
+
+    protected static class Count extends ChangeCollector {
+
+        protected long changed;
+
+        @Override
+        public synchronized void add(DocumentModel saved) {
+            changed++;
+        }
+
+        @Override
+        public synchronized Object result() {
+            return Blobs.createJSONBlob(String.format("{\"changed\":%d}", changed));
+        }
+    }
+
+    protected static class IdBlob extends ChangeCollector {
+
+        protected final Blob blob;
+
+        protected final Writer writer;
+
+        protected IdBlob() throws IOException {
+            blob = Blobs.createBlobWithExtension(".txt");
+            blob.setMimeType("text/plain");
+            blob.setEncoding(StandardCharsets.UTF_8.name());
+            blob.setFilename("changed-ids.txt");
+            writer = Files.newBufferedWriter(blob.getFile().toPath(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public synchronized void add(DocumentModel saved) {
+            try {
+                writer.write(saved.getId());
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized Object result() throws IOException {
+            writer.close();
+            return blob;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+}
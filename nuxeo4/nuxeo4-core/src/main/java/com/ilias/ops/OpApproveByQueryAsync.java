@@ -0,0 +1,41 @@
+package com.ilias.ops;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.ContractService;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.CoreSession;
+
+@Operation(
+        id = OpApproveByQueryAsync.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Approve By Query (async)",
+        description = "Submits the 'contractApprove' bulk action for the NXQL query and returns its command id. "
+                + "Poll progress with Contract.ApproveByQueryStatus."
+)
+public class OpApproveByQueryAsync {
+
+    public static final String ID = "Contract.ApproveByQueryAsync";
+
+    @Context
+    protected CoreSession session;
+
+    @Context
+    protected ContractService contractService;
+
+    @Param(name = "query")
+    protected String query;
+
+    @OperationMethod
+    public String run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            if (query == null || query.isBlank()) {
+                throw new OperationException("Parameter 'query' is required");
+            }
+            return contractService.approveByQueryAsync(session, query);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ilias.ops;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.ContractService;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.bulk.message.BulkStatus;
+
+@Operation(
+        id = OpApproveByQueryStatus.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Approve By Query Status",
+        description = "Returns the progress of a Contract.ApproveByQueryAsync command as JSON (state, processed, total)."
+)
+public class OpApproveByQueryStatus {
+
+    public static final String ID = "Contract.ApproveByQueryStatus";
+
+    protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Context
+    protected ContractService contractService;
+
+    @Param(name = "commandId")
+    protected String commandId;
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            if (commandId == null || commandId.isBlank()) {
+                throw new OperationException("Parameter 'commandId' is required");
+            }
+            BulkStatus status = contractService.getApproveStatus(commandId);
+            ObjectNode json = MAPPER.createObjectNode();
+            json.put("commandId", commandId);
+            json.put("state", String.valueOf(status.getState()));
+            json.put("processed", status.getProcessed());
+            json.put("total", status.getTotal());
+            json.put("errors", status.getErrorCount());
+            return Blobs.createJSONBlob(json.toString());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ilias.ops;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.StatusJobService;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+
+@Operation(
+        id = OpChangeStatusReport.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Change Status in Path (report)",
+        description = "Same change as Contract.ChangeStatusInPath, returning a blob instead of the documents: the count, the ids, a page cursor or a resumable job id."
+)
+public class OpChangeStatusReport extends AbstractChangeStatusOperation {
+
+    public static final String ID = "Contract.ChangeStatusInPathReport";
+
+    /** What to return, see {@link ChangeCollector.Mode}: count (default), ids or page. */
+    @Param(name = "resultMode", required = false)
+    protected String resultMode = "count";
+
+    /** Page size of the {@code page} result mode. */
+    @Param(name = "pageSize", required = false)
+    protected int pageSize = ChangeCollector.DEFAULT_PAGE_SIZE;
+
+    /**
+     * Run as a resumable {@link StatusJobService} job instead: returns {@code {"jobId":"..."}} right away, the
+     * changes are committed and checkpointed chunk by chunk in the background.
+     */
+    @Param(name = "job", required = false)
+    protected boolean job = false;
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            if (job) {
+                return Blobs.createJSONBlob("{\"jobId\":\"" + startJob() + "\"}");
+            }
+            ChangeCollector.Mode mode = ChangeCollector.Mode.of(resultMode);
+            if (mode == ChangeCollector.Mode.DOCUMENTS) {
+                throw new OperationException("The changed documents are returned by " + OpChangeStatus.ID);
+            }
+            return (Blob) change(mode, pageSize);
+        }
+    }
+
+    @Override
+    protected String operationId() {
+        return ID;
+    }
+}
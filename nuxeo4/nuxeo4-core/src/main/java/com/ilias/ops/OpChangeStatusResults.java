@@ -0,0 +1,62 @@
+package com.ilias.ops;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.query.IdListPageProvider;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.automation.core.util.PaginableDocumentModelList;
+import org.nuxeo.ecm.core.api.CoreSession;
+
+import java.util.UUID;
+
+@Operation(
+        id = OpChangeStatusResults.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Change Status Results",
+        description = "Returns a page of the documents changed by a Contract.ChangeStatusInPathReport call run with resultMode=page."
+)
+public class OpChangeStatusResults {
+
+    public static final String ID = "Contract.ChangeStatusResults";
+
+    @Context
+    protected CoreSession session;
+
+    /** The cursor returned by Contract.ChangeStatusInPathReport with resultMode=page. */
+    @Param(name = "cursor")
+    protected String cursor;
+
+    @Param(name = "currentPageIndex", required = false)
+    protected int currentPageIndex = 0;
+
+    @Param(name = "pageSize", required = false)
+    protected int pageSize = ChangeCollector.DEFAULT_PAGE_SIZE;
+
+    @OperationMethod
+    public PaginableDocumentModelList run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            if (pageSize <= 0 || currentPageIndex < 0) {
+                throw new OperationException("pageSize must be positive and currentPageIndex not negative");
+            }
+            ChangeCollector.CursorPage page = isCursor(cursor)
+                    ? ChangeCollector.readPage(cursor, currentPageIndex, pageSize)
+                    : null;
+            if (page == null) {
+                throw new OperationException("Unknown or expired cursor: " + cursor);
+            }
+            return IdListPageProvider.page(session, cursor, page.ids(), page.resultsCount(), currentPageIndex,
+                    pageSize);
+        }
+    }
+
+    protected static boolean isCursor(String cursor) {
+        try {
+            return cursor != null && UUID.fromString(cursor).toString().equals(cursor);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
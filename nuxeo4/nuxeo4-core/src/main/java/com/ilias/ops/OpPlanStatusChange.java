@@ -0,0 +1,170 @@
+package com.ilias.ops;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.fp.CompiledRuleSet;
+import com.ilias.fp.CompiledRuleSet.Evaluator;
+import com.ilias.fp.DocRule;
+import com.ilias.fp.DocRule.Rule;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.RuleSetService;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.IterableQueryResult;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Operation(
+        id = OpPlanStatusChange.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Plan Status Change (dry run)",
+        description = "Previews Contract.ChangeStatusInPath without writing: counts per current -> target status and a sample of ids, as JSON."
+)
+public class OpPlanStatusChange {
+
+    public static final String ID = "Contract.PlanStatusChange";
+
+    public static final int DEFAULT_SAMPLE_SIZE = 20;
+
+    protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Context
+    protected CoreSession session;
+
+    @Context
+    protected RuleSetService ruleSets;
+
+    @Param(name = "path")
+    protected String path;
+
+    @Param(name = "requiredType", required = false)
+    protected String requiredType = "Contract";
+
+    @Param(name = "targetStatus", required = false)
+    protected String targetStatus = "Approved";
+
+    @Param(name = "enforceContractType", required = false)
+    protected boolean enforceType = true;
+
+    @Param(name = "onlyIfCurrentStatus", required = false)
+    protected String onlyIfCurrentStatus = "";
+
+    @Param(name = "ruleSet", required = false)
+    protected String ruleSet = "contractChangeStatus";
+
+    /** Ids of affected documents to return, picked uniformly over the whole result. */
+    @Param(name = "sampleSize", required = false)
+    protected int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            if (path == null || path.isBlank()) {
+                throw new OperationException("Parameter 'path' is required");
+            }
+            CompiledRuleSet rules = ruleSets.getRuleSet(ruleSet);
+            if (rules == null) {
+                throw new OperationException("Unknown rule set: " + ruleSet);
+            }
+            Map<String, String> args = new HashMap<>();
+            args.put("path", path);
+            args.put("requiredType", requiredType);
+            args.put("onlyIfCurrentStatus", onlyIfCurrentStatus);
+
+            Preview preview = new Preview(Math.max(0, sampleSize));
+            if (DocRule.isKnownField(OpChangeStatus.XPATH_STATUS)) {
+                SubmitParams params =
+                        new SubmitParams(requiredType, targetStatus, OpChangeStatus.BLANK_PREFIX, enforceType);
+                Evaluator evaluator = rules.bind(args);
+                Rule rule = evaluator.toRule().and(DocRule.pathStartsWith(path));
+                String nxql = DocRule.select(String.join(", ", OpChangeStatus.COLUMNS), "Document", rule,
+                        "ecm:isProxy = 0");
+                // checks answered by the projected type (type, field presence) are settled once per type; a
+                // document is loaded only for what is left, e.g. a title check
+                Map<String, Rule> residualByType = new HashMap<>();
+                long loaded = 0;
+                // rows are iterated from the database cursor, none is kept
+                try (IterableQueryResult rows = session.queryAndFetch(nxql, NXQL.NXQL)) {
+                    for (Map<String, Serializable> row : rows) {
+                        Optional<String> target = OpChangeStatus.plan(row, params);
+                        if (target.isPresent()) {
+                            Rule residual = residualByType.computeIfAbsent((String) row.get(NXQL.ECM_PRIMARYTYPE),
+                                    rule::residualForType);
+                            if (residual == DocRule.NEVER) {
+                                target = Optional.empty();
+                            } else if (residual != DocRule.ALWAYS) {
+                                loaded++;
+                                if (!residual.test(session.getDocument(new IdRef((String) row.get(NXQL.ECM_UUID))))) {
+                                    target = Optional.empty();
+                                }
+                            }
+                        }
+                        preview.add(row, target);
+                    }
+                }
+                ContractMetrics.scanned(ID, preview.scanned);
+                ContractMetrics.loaded(ID, loaded);
+            }
+            return Blobs.createJSONBlob(preview.toJson());
+        }
+    }
+
+    /** Constant-size aggregate: counters per transition and a reservoir sample of ids. */
+    protected static class Preview {
+
+        protected final int sampleSize;
+        protected final List<String> sample = new ArrayList<>();
+        protected final Map<String, Long> transitions = new TreeMap<>();
+        protected long scanned;
+        protected long affected;
+
+        protected Preview(int sampleSize) {
+            this.sampleSize = sampleSize;
+        }
+
+        protected void add(Map<String, Serializable> row, Optional<String> target) {
+            scanned++;
+            if (target.isEmpty()) {
+                return;
+            }
+            affected++;
+            String current = (String) row.get(OpChangeStatus.XPATH_STATUS);
+            transitions.merge((current == null ? "" : current) + " -> " + target.get(), 1L, Long::sum);
+            String id = (String) row.get(NXQL.ECM_UUID);
+            if (sample.size() < sampleSize) {
+                sample.add(id);
+            } else if (sampleSize > 0) {
+                long slot = ThreadLocalRandom.current().nextLong(affected);
+                if (slot < sampleSize) {
+                    sample.set((int) slot, id);
+                }
+            }
+        }
+
+        protected String toJson() {
+            ObjectNode json = MAPPER.createObjectNode();
+            json.put("scanned", scanned);
+            json.put("affected", affected);
+            ObjectNode counts = json.putObject("transitions");
+            transitions.forEach(counts::put);
+            sample.forEach(json.putArray("sample")::add);
+            return json.toString();
+        }
+    }
+}
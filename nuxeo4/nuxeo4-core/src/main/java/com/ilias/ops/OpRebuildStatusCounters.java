@@ -0,0 +1,41 @@
+package com.ilias.ops;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.StatusCounterService;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.PathRef;
+
+@Operation(
+        id = OpRebuildStatusCounters.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Rebuild Status Counters",
+        description = "Recomputes the status counters of a folder and everything below it from a query."
+)
+public class OpRebuildStatusCounters {
+
+    public static final String ID = "Contract.RebuildStatusCounters";
+
+    @Context
+    protected CoreSession session;
+
+    @Context
+    protected StatusCounterService counters;
+
+    @Param(name = "path", required = false)
+    protected String path = "/";
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            long counted = counters.rebuild(session, new PathRef(path));
+            return Blobs.createJSONBlob(String.format("{\"counted\":%d}", counted));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ilias.ops;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.StatusJobService;
+import com.ilias.service.interfaces.StatusJobService.JobStatus;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+
+@Operation(
+        id = OpStatusJob.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Status Job",
+        description = "Returns the progress of a resumable status job as JSON (state, lastId, scanned, changed, error); with resume=true, first schedules it again from its checkpoint."
+)
+public class OpStatusJob {
+
+    public static final String ID = "Contract.StatusJob";
+
+    protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Context
+    protected StatusJobService jobs;
+
+    @Param(name = "jobId")
+    protected String jobId;
+
+    @Param(name = "resume", required = false)
+    protected boolean resume = false;
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            if (jobId == null || jobId.isBlank()) {
+                throw new OperationException("Parameter 'jobId' is required");
+            }
+            boolean resumed = resume && jobs.resume(jobId);
+            JobStatus status = jobs.getStatus(jobId);
+            if (status == null) {
+                throw new OperationException("Unknown or expired job: " + jobId);
+            }
+            ObjectNode json = MAPPER.createObjectNode();
+            json.put("jobId", jobId);
+            json.put("state", String.valueOf(status.state()));
+            json.put("lastId", status.lastId() == null ? "" : status.lastId());
+            json.put("scanned", status.scanned());
+            json.put("changed", status.changed());
+            json.put("resumed", resumed);
+            json.put("error", status.error() == null ? "" : status.error());
+            return Blobs.createJSONBlob(json.toString());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ilias.ops;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.StatusCounterService;
+
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.Constants;
+import org.nuxeo.ecm.automation.core.annotations.*;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.PathRef;
+
+import java.util.Map;
+
+@Operation(
+        id = OpStatusSummary.ID,
+        category = Constants.CAT_DOCUMENT,
+        label = "Contract - Status Summary",
+        description = "Returns how many contracts are in each status under a folder as JSON, read from the status counters."
+)
+public class OpStatusSummary {
+
+    public static final String ID = "Contract.StatusSummary";
+
+    protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Context
+    protected CoreSession session;
+
+    @Context
+    protected StatusCounterService counters;
+
+    @Param(name = "path")
+    protected String path;
+
+    @OperationMethod
+    public Blob run() throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            if (path == null || path.isBlank()) {
+                throw new OperationException("Parameter 'path' is required");
+            }
+            DocumentModel folder = session.getDocument(new PathRef(path));
+            Map<String, Long> summary = counters.getSummary(session.getRepositoryName(), folder.getId());
+            ObjectNode json = MAPPER.createObjectNode();
+            json.put("folderId", folder.getId());
+            ObjectNode counts = json.putObject("counts");
+            summary.forEach(counts::put);
+            return Blobs.createJSONBlob(json.toString());
+        }
+    }
+}
@@ -4,28 +4,47 @@ import com.ilias.core.SubmitCore;
 import com.ilias.core.SubmitCore.DocPatch;
 import com.ilias.core.SubmitCore.DocView;
 import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.fp.CompiledRuleSet;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.ContractService.Transition;
+import com.ilias.service.interfaces.RuleSetService;
 
+import io.dropwizard.metrics5.Timer;
 import org.nuxeo.ecm.automation.OperationException;
 import org.nuxeo.ecm.automation.core.Constants;
 import org.nuxeo.ecm.automation.core.annotations.*;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
-
+import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.DocumentRefList;
+import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
-import static com.ilias.fp.DocRule.*;
-
 @Operation(
-        id = "Contract.SubmitForApproval",
+        id = OpSubmitForApproval.ID,
         category = Constants.CAT_DOCUMENT,
         label = "Contract - Submit For Approval (FP)",
         description = "Marks the document as 'In Review' and (optionally) prefixes the title using a pure SubmitCore plan."
 )
 public class OpSubmitForApproval {
 
+    public static final String ID = "Contract.SubmitForApproval";
+
     @Context
     protected CoreSession session;
 
+    @Context
+    protected RuleSetService ruleSets;
+
+    @Context
+    protected ContractService contracts;
+
     @Param(name = "requiredType", required = false)
     protected String requiredType = "Contract";
 
@@ -38,41 +57,91 @@ public class OpSubmitForApproval {
     @Param(name = "enforceContractType", required = false)
     protected boolean enforceType = true;
 
+    @Param(name = "ruleSet", required = false)
+    protected String ruleSet = "contractSubmit";
+
+    /** For list input: leave refused documents unchanged instead of failing the whole call */
+    @Param(name = "skipRejected", required = false)
+    protected boolean skipRejected = false;
+
     private static final String XPATH_TITLE = "dc:title";
     private static final String XPATH_CONTRACT_STATUS = "contract:status";
 
     @OperationMethod
     public DocumentModel run(DocumentModel doc) throws OperationException {
-        Predicate<DocumentModel> RULES = typeIs(requiredType)
-                .and(hasTitle)
-                .and(titleMissingPrefix(titlePrefix))
-                .and(hasProperty(XPATH_CONTRACT_STATUS));
-
-        if (!RULES.test(doc)) {
-            throw new OperationException("SubmitForApproval preconditions failed (type/title/prefix/status).");
-        }
-
-        DocView view = new DocView(doc.getType(), doc.getTitle(), true);
-        SubmitParams params = new SubmitParams(requiredType, statusInReview, titlePrefix, enforceType);
-
-        final DocPatch patch;
-        try {
-            patch = SubmitCore.DocPatch.plan(view, params);
-        } catch (IllegalArgumentException iae) {
-            throw new OperationException(iae);
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            String rejectedBy = preconditions().firstRejecting(doc);
+            if (rejectedBy != null) {
+                throw new OperationException("SubmitForApproval preconditions failed (" + rejectedBy + ").");
+            }
+
+            DocView view = new DocView(doc.getType(), doc.getTitle(), true);
+            SubmitParams params = new SubmitParams(requiredType, statusInReview, titlePrefix, enforceType);
+
+            final DocPatch patch;
+            try {
+                patch = SubmitCore.DocPatch.plan(view, params);
+            } catch (IllegalArgumentException iae) {
+                throw new OperationException(iae);
+            }
+
+            if (patch.isEmpty()) {
+                return doc; // nothing to change
+            }
+
+            DocumentModel finalDoc = doc;
+            patch.newTitle().ifPresent(t -> finalDoc.setPropertyValue(XPATH_TITLE, t));
+            DocumentModel finalDoc1 = doc;
+            patch.newStatus().ifPresent(s -> finalDoc1.setPropertyValue(XPATH_CONTRACT_STATUS, s));
+
+            doc = session.saveDocument(doc);
+            session.save();
+            return doc;
         }
+    }
 
-        if (patch.isEmpty()) {
-            return doc; // nothing to change
+    /**
+     * Submits the whole list through {@link ContractService#submitForApprovalBatch}: one plan for all documents
+     * and one session flush per chunk instead of one per document. Unless {@code skipRejected} is set, every
+     * document is checked first and nothing is written if one of them is refused.
+     */
+    @OperationMethod
+    public DocumentModelList run(DocumentModelList docs) throws OperationException {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.OPERATION, ID)) {
+            CompiledRuleSet.Evaluator preconditions = preconditions();
+            Predicate<DocumentModel> accept = preconditions::test;
+            if (!skipRejected) {
+                for (DocumentModel doc : docs) {
+                    String rejectedBy = enforceType && !requiredType.equals(doc.getType())
+                            ? "type" : preconditions.firstRejecting(doc);
+                    if (rejectedBy != null) {
+                        throw new OperationException(
+                                "SubmitForApproval preconditions failed on " + doc.getId() + " (" + rejectedBy + ").");
+                    }
+                }
+                accept = doc -> true; // already checked
+            }
+            SubmitParams params = new SubmitParams(requiredType, statusInReview, titlePrefix, enforceType);
+            List<Transition> results = contracts.submitForApprovalBatch(session, docs, params, accept);
+            DocumentModelList out = new DocumentModelListImpl(results.size());
+            results.forEach(t -> out.add(t.doc()));
+            return out;
         }
+    }
 
-        DocumentModel finalDoc = doc;
-        patch.newTitle().ifPresent(t -> finalDoc.setPropertyValue(XPATH_TITLE, t));
-        DocumentModel finalDoc1 = doc;
-        patch.newStatus().ifPresent(s -> finalDoc1.setPropertyValue(XPATH_CONTRACT_STATUS, s));
+    @OperationMethod
+    public DocumentModelList run(DocumentRefList refs) throws OperationException {
+        return run(session.getDocuments(refs.toArray(new DocumentRef[0])));
+    }
 
-        doc = session.saveDocument(doc);
-        session.save();
-        return doc;
+    protected CompiledRuleSet.Evaluator preconditions() throws OperationException {
+        CompiledRuleSet rules = ruleSets.getRuleSet(ruleSet);
+        if (rules == null) {
+            throw new OperationException("Unknown rule set: " + ruleSet);
+        }
+        Map<String, String> args = new HashMap<>();
+        args.put("requiredType", requiredType);
+        args.put("titlePrefix", titlePrefix);
+        return rules.bind(args);
     }
 }
@@ -1,5 +1,6 @@
 package com.ilias.ops;
 
+import com.ilias.service.interfaces.PathResolverService;
 import org.apache.commons.lang3.StringUtils;
 import org.nuxeo.ecm.automation.core.Constants;
 import org.nuxeo.ecm.automation.core.annotations.Context;
@@ -8,7 +9,6 @@ import org.nuxeo.ecm.automation.core.annotations.OperationMethod;
 import org.nuxeo.ecm.automation.core.annotations.Param;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
-import org.nuxeo.ecm.core.api.PathRef;
 
 /**
  *
@@ -21,6 +21,9 @@ public class PrefixTitleOperation {
     @Context
     protected CoreSession session;
 
+    @Context
+    protected PathResolverService pathResolver;
+
     @Param(name = "path", required = false)
     protected String path;
 
@@ -29,7 +32,7 @@ public class PrefixTitleOperation {
         if (StringUtils.isBlank(path)) {
             return session.getRootDocument();
         } else {
-            return session.getDocument(new PathRef(path));
+            return pathResolver.resolve(session, path);
         }
     }
 }
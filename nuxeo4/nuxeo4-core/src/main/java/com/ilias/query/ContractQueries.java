@@ -0,0 +1,36 @@
+package com.ilias.query;
+
+import org.nuxeo.ecm.platform.query.api.PageProviderDefinition;
+import org.nuxeo.ecm.platform.query.api.PageProviderService;
+import org.nuxeo.ecm.platform.query.nxql.NXQLQueryBuilder;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * The contract page providers of contract-types-contrib.xml. Their parameters are bound and quoted by the
+ * provider, and they filter on the indexed {@code contract:status}, so sweeps should start from them rather
+ * than from NXQL put together by hand.
+ */
+public final class ContractQueries {
+
+    private ContractQueries() {}
+
+    /** Parameters: status */
+    public static final String BY_STATUS = "contract_by_status";
+
+    /** Parameters: path prefix, status */
+    public static final String BY_PATH_AND_STATUS = "contract_by_path_and_status";
+
+    /**
+     * The provider's query with its parameters bound, without the provider's sort: for projections, scrolls and
+     * jobs, which page on their own.
+     */
+    public static String nxql(String providerName, Object... params) {
+        PageProviderDefinition definition = Framework.getService(PageProviderService.class)
+                                                     .getPageProviderDefinition(providerName);
+        if (definition == null || definition.getPattern() == null) {
+            throw new IllegalArgumentException("Unknown page provider: " + providerName);
+        }
+        return NXQLQueryBuilder.getQuery(definition.getPattern().trim().replaceAll("\\s+", " "), params,
+                definition.getQuotePatternParameters(), definition.getEscapePatternParameters(), null);
+    }
+}
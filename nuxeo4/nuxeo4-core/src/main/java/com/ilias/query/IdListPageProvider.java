@@ -0,0 +1,57 @@
+package com.ilias.query;
+
+import org.nuxeo.ecm.automation.core.util.PaginableDocumentModelList;
+import org.nuxeo.ecm.automation.core.util.PaginableDocumentModelListImpl;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.platform.query.api.AbstractPageProvider;
+import org.nuxeo.ecm.platform.query.nxql.CoreQueryDocumentPageProvider;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a stored list of document ids: holds only the ids of that page, loads only their documents, and
+ * reports the size of the whole list. The provider name is the cursor the ids were stored under.
+ */
+public class IdListPageProvider extends AbstractPageProvider<DocumentModel> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String IDS_PROPERTY = "ids";
+
+    public static final String RESULTS_COUNT_PROPERTY = "resultsCount";
+
+    /**
+     * @param pageIds the ids of page {@code pageIndex} only
+     * @param resultsCount the number of ids under the cursor
+     */
+    public static PaginableDocumentModelList page(CoreSession session, String cursor, List<String> pageIds,
+            long resultsCount, long pageIndex, int pageSize) {
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put(CoreQueryDocumentPageProvider.CORE_SESSION_PROPERTY, (Serializable) session);
+        properties.put(IDS_PROPERTY, new ArrayList<>(pageIds));
+        properties.put(RESULTS_COUNT_PROPERTY, resultsCount);
+        IdListPageProvider provider = new IdListPageProvider();
+        provider.setName(cursor);
+        provider.setProperties(properties);
+        provider.setPageSize(pageSize);
+        provider.setCurrentPage(pageIndex);
+        return new PaginableDocumentModelListImpl(provider);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<DocumentModel> getCurrentPage() {
+        List<String> ids = (List<String>) getProperties().get(IDS_PROPERTY);
+        CoreSession session = (CoreSession) getProperties().get(CoreQueryDocumentPageProvider.CORE_SESSION_PROPERTY);
+        setResultsCount((Long) getProperties().get(RESULTS_COUNT_PROPERTY));
+        DocumentRef[] refs = ids.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+        return session.getDocuments(refs);
+    }
+}
@@ -1,57 +1,242 @@
 package com.ilias.service.impls;
 
+import com.ilias.bulk.ContractApproveAction;
 import com.ilias.core.SubmitCore;
+import com.ilias.core.SubmitCore.PatchBuffer;
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.core.SubmitCore.ViewBatch;
+import com.ilias.fp.DocRule;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.query.ContractQueries;
 import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.StatusJobService;
+import io.dropwizard.metrics5.Timer;
 import org.nuxeo.ecm.core.api.*;
+import org.nuxeo.ecm.core.bulk.BulkService;
+import org.nuxeo.ecm.core.bulk.message.BulkCommand;
+import org.nuxeo.ecm.core.bulk.message.BulkStatus;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class ContractServiceImpl implements ContractService {
 
     private static final String XPATH_TITLE = "dc:title";
     private static final String XPATH_STATUS = "contract:status";
 
+    /** Attempts of a transition before it is reported as a {@link Outcome#CONFLICT}. */
+    public static final int MAX_TRANSITION_ATTEMPTS = 5;
+
+    /** Documents saved between two session flushes by the batch methods. */
+    public static final String PROP_BATCH_CHUNK_SIZE = "ilias.contract.batch.chunkSize";
+
     @Override
     public DocumentModel submitForApproval(CoreSession session, DocumentModel doc) {
-        var view = new SubmitCore.DocView(doc.getType(), doc.getTitle(), true);
-        var params = new SubmitCore.SubmitParams(doc.getType(), IN_REVIEW, "[SUBMITTED] ", false);
-        var patch  = SubmitCore.DocPatch.plan(view, params);
-        DocumentModel finalDoc = doc;
-        patch.newTitle().ifPresent(t -> finalDoc.setPropertyValue(XPATH_TITLE, t));
-        DocumentModel finalDoc1 = doc;
-        patch.newStatus().ifPresent(s -> finalDoc1.setPropertyValue(XPATH_STATUS, s));
-        doc = session.saveDocument(doc);
-        session.save();
-        return doc;
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "submitForApproval")) {
+            var view = new SubmitCore.DocView(doc.getType(), doc.getTitle(), true);
+            var params = new SubmitCore.SubmitParams(doc.getType(), IN_REVIEW, "[SUBMITTED] ", false);
+            var patch  = SubmitCore.DocPatch.plan(view, params);
+            DocumentModel finalDoc = doc;
+            patch.newTitle().ifPresent(t -> finalDoc.setPropertyValue(XPATH_TITLE, t));
+            DocumentModel finalDoc1 = doc;
+            patch.newStatus().ifPresent(s -> finalDoc1.setPropertyValue(XPATH_STATUS, s));
+            doc = session.saveDocument(doc);
+            session.save();
+            return doc;
+        }
+    }
+
+    @Override
+    public List<Transition> submitForApprovalBatch(CoreSession session, List<DocumentModel> docs) {
+        return submitForApprovalBatch(session, docs, new SubmitParams("", IN_REVIEW, "[SUBMITTED] ", false),
+                doc -> true);
+    }
+
+    @Override
+    public List<Transition> submitForApprovalBatch(CoreSession session, List<DocumentModel> docs, SubmitParams params,
+            Predicate<DocumentModel> preconditions) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "submitForApprovalBatch")) {
+            int chunkSize = chunkSize();
+            List<Transition> results = new ArrayList<>(docs.size());
+            int capacity = Math.min(chunkSize, docs.size());
+            ViewBatch views = new ViewBatch(capacity);
+            PatchBuffer patches = new PatchBuffer(capacity);
+            int changed = 0;
+            for (int from = 0; from < docs.size(); from += chunkSize) {
+                List<DocumentModel> chunk = docs.subList(from, Math.min(from + chunkSize, docs.size()));
+                views.clear();
+                for (DocumentModel doc : chunk) {
+                    views.add(doc.getType(), doc.getTitle(), DocRule.typeHasField(doc.getType(), XPATH_STATUS));
+                }
+                SubmitCore.planBatch(views, params, patches);
+                int saved = 0;
+                for (int i = 0; i < chunk.size(); i++) {
+                    DocumentModel doc = chunk.get(i);
+                    if (patches.isRejected(i) || !preconditions.test(doc)) {
+                        results.add(new Transition(Outcome.REJECTED, doc));
+                    } else if (patches.isEmpty(i)) {
+                        results.add(new Transition(Outcome.SKIPPED, doc));
+                    } else {
+                        if (patches.hasNewTitle(i)) {
+                            doc.setPropertyValue(XPATH_TITLE, patches.newTitle(i));
+                        }
+                        if (patches.hasNewStatus(i)) {
+                            doc.setPropertyValue(XPATH_STATUS, patches.newStatus());
+                        }
+                        results.add(new Transition(Outcome.APPLIED, session.saveDocument(doc)));
+                        saved++;
+                    }
+                }
+                if (saved > 0) {
+                    session.save();
+                }
+                changed += saved;
+            }
+            ContractMetrics.scanned("submitForApprovalBatch", docs.size());
+            ContractMetrics.changed("submitForApprovalBatch", changed);
+            return results;
+        }
     }
 
     @Override
     public DocumentModel approveContract(CoreSession session, DocumentModel doc) {
-        String curr = (String) doc.getPropertyValue(XPATH_STATUS);
-        if (!Objects.equals(curr, IN_REVIEW)) {
-            return doc; // gate: only promote from In Review
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "approveContract")) {
+            Transition transition = transition(session, doc, IN_REVIEW, APPROVED); // gate: only promote from In Review
+            if (transition.outcome() == Outcome.CONFLICT) {
+                throw new ConcurrentUpdateException(doc.getId());
+            }
+            session.save();
+            return transition.doc();
+        }
+    }
+
+    @Override
+    public List<Transition> approveBatch(CoreSession session, List<DocumentModel> docs) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "approveBatch")) {
+            List<Transition> results = new ArrayList<>(docs.size());
+            int changed = 0;
+            for (DocumentModel doc : docs) {
+                Transition transition = transition(session, doc, IN_REVIEW, APPROVED);
+                if (transition.outcome() == Outcome.APPLIED) {
+                    changed++;
+                }
+                results.add(transition);
+            }
+            ContractMetrics.scanned("approveBatch", docs.size());
+            ContractMetrics.changed("approveBatch", changed);
+            return results;
         }
-        doc.setPropertyValue(XPATH_STATUS, APPROVED);
-        doc = session.saveDocument(doc);
-        session.save();
-        return doc;
     }
 
     @Override
     public List<String> approveByQuery(CoreSession session, String nxql) {
-        List<DocumentModel> docs = session.query(nxql);
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "approveByQuery")) {
+            return approve(session, onlyInReview(nxql), "approveByQuery");
+        }
+    }
+
+    @Override
+    public List<String> approveInPath(CoreSession session, String path) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "approveInPath")) {
+            return approve(session, ContractQueries.nxql(ContractQueries.BY_PATH_AND_STATUS, path, IN_REVIEW),
+                    "approveInPath");
+        }
+    }
+
+    /** Approves the documents of {@code nxql} that are in review, saves the session, returns the updated ids. */
+    protected List<String> approve(CoreSession session, String nxql, String metric) {
+        // project only id + status, and load by reference just the documents that change
+        String projection = DocRule.selectColumns(nxql, NXQL.ECM_UUID, XPATH_STATUS);
         List<String> updated = new ArrayList<>();
-        for (DocumentModel d : docs) {
-            String curr = (String) d.getPropertyValue(XPATH_STATUS);
+        PartialList<Map<String, Serializable>> rows = session.queryProjection(projection, 0, 0);
+        for (Map<String, Serializable> row : rows) {
+            String curr = (String) row.get(XPATH_STATUS);
             if (Objects.equals(curr, IN_REVIEW)) {
-                d.setPropertyValue(XPATH_STATUS, APPROVED);
-                session.saveDocument(d);
-                updated.add(d.getId());
+                String id = (String) row.get(NXQL.ECM_UUID);
+                DocumentModel d = session.getDocument(new IdRef(id));
+                // a document approved or rejected meanwhile by someone else is skipped, not overwritten
+                if (transition(session, d, IN_REVIEW, APPROVED).outcome() == Outcome.APPLIED) {
+                    updated.add(id);
+                }
             }
         }
         session.save();
+        ContractMetrics.scanned(metric, rows.size());
+        ContractMetrics.changed(metric, updated.size());
         return updated;
     }
+
+    @Override
+    public String approveByQueryJob(CoreSession session, String nxql) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "approveByQueryJob")) {
+            // the query only returns documents in review, so any type may carry the status
+            var params = new SubmitParams("", APPROVED, "", false);
+            return Framework.getService(StatusJobService.class).start(session, onlyInReview(nxql), params);
+        }
+    }
+
+    @Override
+    public String approveByQueryAsync(CoreSession session, String nxql) {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.SERVICE, "approveByQueryAsync")) {
+            var command = new BulkCommand.Builder(ContractApproveAction.ACTION_NAME, onlyInReview(nxql),
+                    session.getPrincipal().getName()).repository(session.getRepositoryName()).build();
+            return Framework.getService(BulkService.class).submit(command);
+        }
+    }
+
+    @Override
+    public Transition transition(CoreSession session, DocumentModel doc, String from, String to) {
+        for (int attempt = 1; ; attempt++) {
+            if (!Objects.equals(doc.getPropertyValue(XPATH_STATUS), from)) {
+                return new Transition(Outcome.SKIPPED, doc);
+            }
+            // the token read with the document: saveDocument rejects the write if the document changed since
+            doc.putContextData(CoreSession.CHANGE_TOKEN, doc.getChangeToken());
+            doc.setPropertyValue(XPATH_STATUS, to);
+            DocumentModel saved;
+            try {
+                saved = session.saveDocument(doc);
+            } catch (ConcurrentUpdateException e) {
+                // nothing was written: re-read and try again
+                if (attempt == MAX_TRANSITION_ATTEMPTS) {
+                    ContractMetrics.transitionConflict();
+                    return new Transition(Outcome.CONFLICT, session.getDocument(doc.getRef()));
+                }
+                ContractMetrics.transitionRetry();
+                doc = session.getDocument(doc.getRef());
+                continue;
+            }
+            try {
+                // a write committed by another node since our read is only seen by the database, at flush
+                session.save();
+                return new Transition(Outcome.APPLIED, saved);
+            } catch (ConcurrentUpdateException e) {
+                // the rejected write stays in the session state, the transaction cannot go on
+                TransactionHelper.setTransactionRollbackOnly();
+                ContractMetrics.transitionConflict();
+                return new Transition(Outcome.CONFLICT, doc);
+            }
+        }
+    }
+
+    @Override
+    public BulkStatus getApproveStatus(String commandId) {
+        return Framework.getService(BulkService.class).getStatus(commandId);
+    }
+
+    private static int chunkSize() {
+        return Math.max(1, Integer.parseInt(Framework.getProperty(PROP_BATCH_CHUNK_SIZE, "100")));
+    }
+
+    /** Lets the repository drop everything that is not In Review instead of filtering in Java. */
+    private static String onlyInReview(String nxql) {
+        return DocRule.restrict(nxql, DocRule.propertyEquals(XPATH_STATUS, IN_REVIEW));
+    }
 }
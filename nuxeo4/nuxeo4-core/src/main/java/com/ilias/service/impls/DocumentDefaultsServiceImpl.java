@@ -0,0 +1,44 @@
+package com.ilias.service.impls;
+
+import com.ilias.defaults.DefaultsDescriptor;
+import com.ilias.fp.DocRule;
+import com.ilias.service.interfaces.DocumentDefaultsService;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+import java.util.Objects;
+import java.util.Optional;
+
+public class DocumentDefaultsServiceImpl extends DefaultComponent implements DocumentDefaultsService {
+
+    public static final String XP_DEFAULTS = "defaults";
+
+    private static final String XPATH_TITLE = "dc:title";
+
+    @Override
+    public boolean applyDefaults(DocumentModel doc) {
+        Optional<DefaultsDescriptor> defaults = getRegistryContribution(XP_DEFAULTS, doc.getType());
+        return defaults.map(d -> apply(d, doc)).orElse(false);
+    }
+
+    protected boolean apply(DefaultsDescriptor defaults, DocumentModel doc) {
+        boolean changed = false;
+        for (DefaultsDescriptor.PropertyDefault p : defaults.getProperties()) {
+            if (!DocRule.typeHasField(doc.getType(), p.getXpath())) {
+                continue; // schema missing
+            }
+            Object current = doc.getPropertyValue(p.getXpath());
+            if (p.isOverride() ? !Objects.equals(current, p.getValue()) : current == null) {
+                doc.setPropertyValue(p.getXpath(), p.getValue());
+                changed = true;
+            }
+        }
+        String prefix = defaults.getTitlePrefix();
+        String title = doc.getTitle() == null ? "" : doc.getTitle();
+        if (!prefix.isEmpty() && !title.startsWith(prefix)) {
+            doc.setPropertyValue(XPATH_TITLE, prefix + title);
+            changed = true;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ilias.service.impls;
+
+import com.ilias.cache.PathIdCache;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.PathResolverService;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentContext;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Path resolution through a {@link PathIdCache} sized by {@code ilias.pathcache.maxSize} and expiring after
+ * {@code ilias.pathcache.ttlSeconds}. A cached id is only trusted if the document loaded by it still has the
+ * requested path, so an invalidation missed on another node costs a lookup, never a wrong document.
+ */
+public class PathResolverServiceImpl extends DefaultComponent implements PathResolverService {
+
+    public static final String PROP_MAX_SIZE = "ilias.pathcache.maxSize";
+    public static final String PROP_TTL_SECONDS = "ilias.pathcache.ttlSeconds";
+
+    protected PathIdCache cache;
+
+    @Override
+    public void start(ComponentContext context) {
+        cache = new PathIdCache(Integer.parseInt(Framework.getProperty(PROP_MAX_SIZE, "1000")),
+                Duration.ofSeconds(Long.parseLong(Framework.getProperty(PROP_TTL_SECONDS, "300"))));
+        ContractMetrics.registerCacheGauge("hits", cache::getHits);
+        ContractMetrics.registerCacheGauge("misses", cache::getMisses);
+        ContractMetrics.registerCacheGauge("evictions", cache::getEvictions);
+        ContractMetrics.registerCacheGauge("size", () -> (long) cache.size());
+    }
+
+    @Override
+    public void stop(ComponentContext context) {
+        for (String name : new String[] { "hits", "misses", "evictions", "size" }) {
+            ContractMetrics.removeCacheGauge(name);
+        }
+        cache.clear();
+    }
+
+    protected static String key(String repositoryName, String path) {
+        String normalized = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        return repositoryName + ":" + normalized;
+    }
+
+    @Override
+    public DocumentModel resolve(CoreSession session, String path) {
+        String key = key(session.getRepositoryName(), path);
+        String id = cache.get(key);
+        if (id != null) {
+            try {
+                // read through the caller's session: permissions are checked as for a path lookup
+                DocumentModel doc = session.getDocument(new IdRef(id));
+                if (key.equals(key(session.getRepositoryName(), doc.getPathAsString()))) {
+                    return doc;
+                }
+            } catch (DocumentNotFoundException e) {
+                // removed meanwhile, resolve again
+            }
+            cache.invalidate(key);
+        }
+        DocumentModel doc = session.getDocument(new PathRef(path));
+        cache.put(key, doc.getId());
+        return doc;
+    }
+
+    @Override
+    public void invalidate(String repositoryName, String path) {
+        cache.invalidate(key(repositoryName, path));
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", cache.getHits());
+        stats.put("misses", cache.getMisses());
+        stats.put("evictions", cache.getEvictions());
+        stats.put("size", (long) cache.size());
+        return stats;
+    }
+}
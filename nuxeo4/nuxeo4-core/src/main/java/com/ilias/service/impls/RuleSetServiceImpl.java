@@ -0,0 +1,36 @@
+package com.ilias.service.impls;
+
+import com.ilias.fp.CompiledRuleSet;
+import com.ilias.fp.RuleSetDescriptor;
+import com.ilias.service.interfaces.RuleSetService;
+import org.nuxeo.runtime.model.ComponentContext;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RuleSetServiceImpl extends DefaultComponent implements RuleSetService {
+
+    public static final String XP_RULE_SETS = "ruleSets";
+
+    protected Map<String, CompiledRuleSet> ruleSets = Map.of();
+
+    @Override
+    public void start(ComponentContext context) {
+        Map<String, CompiledRuleSet> compiled = new HashMap<>();
+        for (RuleSetDescriptor descriptor : this.<RuleSetDescriptor> getRegistryContributions(XP_RULE_SETS)) {
+            compiled.put(descriptor.getId(), CompiledRuleSet.compile(descriptor));
+        }
+        ruleSets = compiled;
+    }
+
+    @Override
+    public void stop(ComponentContext context) {
+        ruleSets = Map.of();
+    }
+
+    @Override
+    public CompiledRuleSet getRuleSet(String id) {
+        return ruleSets.get(id);
+    }
+}
@@ -0,0 +1,219 @@
+package com.ilias.service.impls;
+
+import com.ilias.fp.DocRule;
+import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.StatusCounterService;
+import org.nuxeo.ecm.core.api.*;
+import org.nuxeo.ecm.core.event.EventService;
+import org.nuxeo.ecm.core.event.impl.EventContextImpl;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.kv.KeyValueService;
+import org.nuxeo.runtime.kv.KeyValueStore;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counters kept under {@code <repository>:<folderId>:<status>}. Every folder counts its whole subtree, so a
+ * summary is a handful of key reads and moving or removing a folder only touches its ancestors.
+ * <p>
+ * The store is not transactional, so nothing is written while the transaction runs: each change is fired as a
+ * {@link #COUNTERS_CHANGED} event carrying its deltas, and the post-commit listener applies the deltas of the
+ * whole transaction at once. A rolled back transaction never reaches the store. For the same reason what a
+ * moved or removed folder contains is counted with a query, as the store does not see the changes made
+ * earlier in the transaction. Only {@link #rebuild} writes directly, from what the repository holds.
+ */
+public class StatusCounterServiceImpl extends DefaultComponent implements StatusCounterService {
+
+    private static final String XPATH_STATUS = "contract:status";
+
+    protected KeyValueStore store() {
+        return Framework.getService(KeyValueService.class).getKeyValueStore(STORE);
+    }
+
+    protected static String key(String repositoryName, String folderId, String status) {
+        return repositoryName + ":" + folderId + ":" + status;
+    }
+
+    @Override
+    public Map<String, Long> getSummary(String repositoryName, String folderId) {
+        KeyValueStore store = store();
+        Map<String, Long> summary = new LinkedHashMap<>();
+        for (String status : ContractService.STATUSES) {
+            Long count = store.getLong(key(repositoryName, folderId, status));
+            summary.put(status, count == null ? 0 : count);
+        }
+        return summary;
+    }
+
+    @Override
+    public void documentAdded(CoreSession session, DocumentModel doc) {
+        record(session, toAncestors(session, doc, weight(session, doc), 1), null, null);
+    }
+
+    @Override
+    public void documentCopied(CoreSession session, DocumentModel doc) {
+        // the counters of the copied subtree do not exist yet, they are computed once it is committed
+        record(session, toAncestors(session, doc, weight(session, doc), 1), null, doc.isFolder() ? doc.getId() : null);
+    }
+
+    @Override
+    public void documentRemoved(CoreSession session, DocumentModel doc, boolean deleted) {
+        ArrayList<String> dropped = null;
+        if (deleted && doc.isFolder()) {
+            dropped = new ArrayList<>();
+            dropped.add(doc.getRepositoryName() + ":" + doc.getId());
+            try (IterableQueryResult folders = session.queryAndFetch("SELECT ecm:uuid FROM Document"
+                    + " WHERE ecm:ancestorId = " + DocRule.literal(doc.getId())
+                    + " AND ecm:mixinType = 'Folderish' AND ecm:isProxy = 0 AND ecm:isVersion = 0", NXQL.NXQL)) {
+                for (Map<String, Serializable> row : folders) {
+                    dropped.add(doc.getRepositoryName() + ":" + row.get(NXQL.ECM_UUID));
+                }
+            }
+        }
+        record(session, toAncestors(session, doc, weight(session, doc), -1), dropped, null);
+    }
+
+    @Override
+    public void statusChanged(CoreSession session, DocumentModel doc, String from, String to) {
+        Map<String, Long> delta = new HashMap<>();
+        if (from != null) {
+            delta.put(from, -1L);
+        }
+        if (to != null) {
+            delta.merge(to, 1L, Long::sum);
+        }
+        record(session, toAncestors(session, doc, delta, 1), null, null);
+    }
+
+    /** Fires the changes as a {@link #COUNTERS_CHANGED} event, applied with the transaction's bundle after commit. */
+    protected void record(CoreSession session, HashMap<String, Long> deltas, ArrayList<String> dropped,
+            String rebuild) {
+        if (deltas.isEmpty() && dropped == null && rebuild == null) {
+            return;
+        }
+        EventContextImpl ctx = new EventContextImpl(session, session.getPrincipal());
+        ctx.setProperty(DELTAS_PROPERTY, deltas);
+        if (dropped != null) {
+            ctx.setProperty(DROPPED_PROPERTY, dropped);
+        }
+        if (rebuild != null) {
+            ctx.setProperty(REBUILD_PROPERTY, rebuild);
+        }
+        Framework.getService(EventService.class).fireEvent(ctx.newEvent(COUNTERS_CHANGED));
+    }
+
+    @Override
+    public void apply(Map<String, Long> deltas, Collection<String> droppedFolders) {
+        KeyValueStore store = store();
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                store.addAndGet(key, delta);
+            }
+        });
+        for (String folder : droppedFolders) {
+            for (String status : ContractService.STATUSES) {
+                store.put(folder + ":" + status, (String) null); // null removes
+            }
+        }
+    }
+
+    /**
+     * What {@code doc} contributes to its ancestors: its own status plus, for a folder, the statuses below it,
+     * queried since the store does not have the changes of the current transaction yet.
+     */
+    protected Map<String, Long> weight(CoreSession session, DocumentModel doc) {
+        Map<String, Long> weight = new HashMap<>();
+        if (!DocRule.isKnownField(XPATH_STATUS)) {
+            return weight;
+        }
+        if (doc.isFolder()) {
+            try (IterableQueryResult below = session.queryAndFetch("SELECT " + XPATH_STATUS + " FROM Document"
+                    + " WHERE ecm:ancestorId = " + DocRule.literal(doc.getId()) + " AND ecm:isProxy = 0"
+                    + " AND ecm:isVersion = 0 AND " + XPATH_STATUS + " IS NOT NULL", NXQL.NXQL)) {
+                for (Map<String, Serializable> row : below) {
+                    weight.merge((String) row.get(XPATH_STATUS), 1L, Long::sum);
+                }
+            }
+        }
+        if (DocRule.typeHasField(doc.getType(), XPATH_STATUS)) {
+            String status = (String) doc.getPropertyValue(XPATH_STATUS);
+            if (status != null) {
+                weight.merge(status, 1L, Long::sum);
+            }
+        }
+        return weight;
+    }
+
+    /** The counter deltas of adding {@code sign * delta} to every ancestor of {@code doc}. */
+    protected HashMap<String, Long> toAncestors(CoreSession session, DocumentModel doc, Map<String, Long> delta,
+            int sign) {
+        HashMap<String, Long> deltas = new HashMap<>();
+        if (delta.values().stream().allMatch(v -> v == 0)) {
+            return deltas;
+        }
+        for (DocumentRef ancestor : session.getParentDocumentRefs(doc.getRef())) {
+            String ancestorId = ancestor.reference().toString();
+            delta.forEach((status, count) -> {
+                if (count != 0) {
+                    deltas.merge(key(doc.getRepositoryName(), ancestorId, status), sign * count, Long::sum);
+                }
+            });
+        }
+        return deltas;
+    }
+
+    @Override
+    public long rebuild(CoreSession session, DocumentRef root) {
+        String repositoryName = session.getRepositoryName();
+        String rootId = session.getDocument(root).getId();
+        String below = " WHERE ecm:ancestorId = " + DocRule.literal(rootId)
+                + " AND ecm:isProxy = 0 AND ecm:isVersion = 0";
+
+        Map<String, String> parents = new HashMap<>(); // folder id -> parent id, for the folders below root
+        try (IterableQueryResult folders = session.queryAndFetch("SELECT ecm:uuid, ecm:parentId FROM Document"
+                + below + " AND ecm:mixinType = 'Folderish'", NXQL.NXQL)) {
+            for (Map<String, Serializable> row : folders) {
+                parents.put((String) row.get(NXQL.ECM_UUID), (String) row.get(NXQL.ECM_PARENTID));
+            }
+        }
+
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        Set<String> statuses = new LinkedHashSet<>(ContractService.STATUSES);
+        long total = 0;
+        if (DocRule.isKnownField(XPATH_STATUS)) {
+            try (IterableQueryResult docs = session.queryAndFetch("SELECT ecm:parentId, " + XPATH_STATUS
+                    + " FROM Document" + below + " AND " + XPATH_STATUS + " IS NOT NULL", NXQL.NXQL)) {
+                for (Map<String, Serializable> row : docs) {
+                    String status = (String) row.get(XPATH_STATUS);
+                    statuses.add(status);
+                    total++;
+                    // count the document in every folder between it and root
+                    for (String folder = (String) row.get(NXQL.ECM_PARENTID); folder != null;
+                         folder = rootId.equals(folder) ? null : parents.get(folder)) {
+                        counts.computeIfAbsent(folder, k -> new HashMap<>()).merge(status, 1L, Long::sum);
+                    }
+                }
+            }
+        }
+
+        KeyValueStore store = store();
+        Set<String> folders = new LinkedHashSet<>(parents.keySet());
+        folders.add(rootId);
+        for (String folder : folders) {
+            Map<String, Long> folderCounts = counts.getOrDefault(folder, Map.of());
+            for (String status : statuses) {
+                store.put(key(repositoryName, folder, status), folderCounts.get(status)); // null removes
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,202 @@
+package com.ilias.service.impls;
+
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.fp.CompiledRuleSet;
+import com.ilias.fp.DocRule;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.ops.OpChangeStatus;
+import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.ContractService.Outcome;
+import com.ilias.service.interfaces.RuleSetService;
+import com.ilias.service.interfaces.StatusJobService;
+import com.ilias.work.StatusJobWork;
+import org.nuxeo.ecm.core.api.*;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.kv.KeyValueService;
+import org.nuxeo.runtime.kv.KeyValueStore;
+import org.nuxeo.runtime.model.DefaultComponent;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Jobs kept under {@code <jobId>:<field>}: the definition (repository, user, query, plan parameters, rule set
+ * and its {@code arg:<name>} arguments) written once, then the checkpoint ({@code lastId}, {@code scanned},
+ * {@code changed}) rewritten after every committed chunk. Chunks are read in {@code ecm:uuid} order with
+ * {@code ecm:uuid > lastId}, so a resumed job continues right after the last commit; a chunk committed but not
+ * yet checkpointed is planned again and left alone, since its documents already have the target status.
+ */
+public class StatusJobServiceImpl extends DefaultComponent implements StatusJobService {
+
+    public static final String PROP_CHUNK_SIZE = "ilias.statusjob.chunkSize";
+    public static final String PROP_TTL_SECONDS = "ilias.statusjob.ttlSeconds";
+
+    protected KeyValueStore store() {
+        return Framework.getService(KeyValueService.class).getKeyValueStore(STORE);
+    }
+
+    protected static long ttl() {
+        return Long.parseLong(Framework.getProperty(PROP_TTL_SECONDS, "604800"));
+    }
+
+    protected void put(String jobId, String field, String value) {
+        store().put(jobId + ":" + field, value, ttl());
+    }
+
+    protected String get(String jobId, String field) {
+        return store().getString(jobId + ":" + field);
+    }
+
+    @Override
+    public String create(CoreSession session, String nxql, SubmitParams params, String ruleSet,
+            Map<String, String> args) {
+        String jobId = UUID.randomUUID().toString();
+        put(jobId, "repository", session.getRepositoryName());
+        put(jobId, "username", session.getPrincipal().getName());
+        put(jobId, "nxql", nxql);
+        put(jobId, "requiredType", params.requiredType());
+        put(jobId, "targetStatus", params.statusInReview());
+        put(jobId, "enforceType", String.valueOf(params.enforceType()));
+        if (ruleSet != null) {
+            put(jobId, "ruleSet", ruleSet);
+            put(jobId, "args", String.join(",", args.keySet()));
+            args.forEach((name, value) -> put(jobId, "arg:" + name, value));
+        }
+        checkpoint(jobId, "", 0, 0);
+        put(jobId, "state", State.RUNNING.name());
+        return jobId;
+    }
+
+    @Override
+    public String start(CoreSession session, String nxql, SubmitParams params, String ruleSet,
+            Map<String, String> args) {
+        String jobId = create(session, nxql, params, ruleSet, args);
+        schedule(jobId);
+        return jobId;
+    }
+
+    @Override
+    public boolean resume(String jobId) {
+        JobStatus status = getStatus(jobId);
+        if (status == null || status.state() == State.DONE) {
+            return false;
+        }
+        put(jobId, "state", State.RUNNING.name());
+        schedule(jobId);
+        return true;
+    }
+
+    protected void schedule(String jobId) {
+        // same work id for the same job: a resume while it is still queued or running is a no-op
+        Framework.getService(WorkManager.class)
+                 .schedule(new StatusJobWork(jobId), WorkManager.Scheduling.IF_NOT_RUNNING_OR_SCHEDULED);
+    }
+
+    @Override
+    public JobStatus getStatus(String jobId) {
+        String state = get(jobId, "state");
+        if (state == null) {
+            return null;
+        }
+        return new JobStatus(jobId, State.valueOf(state), get(jobId, "lastId"), count(jobId, "scanned"),
+                count(jobId, "changed"), get(jobId, "error"));
+    }
+
+    protected long count(String jobId, String field) {
+        String value = get(jobId, field);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    /** The rule set of the job bound to its arguments, or accept-all for a plain query. */
+    protected Predicate<DocumentModel> accept(String jobId) {
+        String ruleSet = get(jobId, "ruleSet");
+        if (ruleSet == null) {
+            return doc -> true;
+        }
+        CompiledRuleSet rules = Framework.getService(RuleSetService.class).getRuleSet(ruleSet);
+        if (rules == null) {
+            throw new IllegalStateException("Unknown rule set: " + ruleSet);
+        }
+        Map<String, String> args = new HashMap<>();
+        String names = get(jobId, "args");
+        for (String name : names == null || names.isEmpty() ? new String[0] : names.split(",")) {
+            args.put(name, get(jobId, "arg:" + name));
+        }
+        return rules.bind(args)::test;
+    }
+
+    protected void checkpoint(String jobId, String lastId, long scanned, long changed) {
+        put(jobId, "scanned", String.valueOf(scanned));
+        put(jobId, "changed", String.valueOf(changed));
+        put(jobId, "lastId", lastId); // last, so the counters never lag behind the id they describe
+    }
+
+    @Override
+    public JobStatus run(String jobId, BooleanSupplier stop) {
+        JobStatus status = getStatus(jobId);
+        if (status == null || status.state() == State.DONE) {
+            return status;
+        }
+        SubmitParams params = new SubmitParams(get(jobId, "requiredType"), get(jobId, "targetStatus"),
+                OpChangeStatus.BLANK_PREFIX, Boolean.parseBoolean(get(jobId, "enforceType")));
+        String nxql = DocRule.selectColumns(get(jobId, "nxql"), OpChangeStatus.COLUMNS);
+        int chunkSize = Math.max(1, Integer.parseInt(Framework.getProperty(PROP_CHUNK_SIZE, "500")));
+        ContractService contracts = Framework.getService(ContractService.class);
+        CoreSession session = CoreInstance.getCoreSession(get(jobId, "repository"), get(jobId, "username"));
+
+        put(jobId, "state", State.RUNNING.name());
+        String lastId = status.lastId() == null ? "" : status.lastId();
+        long scanned = status.scanned();
+        long changed = status.changed();
+        try {
+            Predicate<DocumentModel> accept = accept(jobId);
+            while (!stop.getAsBoolean()) {
+                String chunk = DocRule.orderBy(DocRule.restrict(nxql, DocRule.idAfter(lastId)), NXQL.ECM_UUID);
+                PartialList<Map<String, Serializable>> rows = session.queryProjection(chunk, chunkSize, 0);
+                if (rows.isEmpty()) {
+                    put(jobId, "state", State.DONE.name());
+                    break;
+                }
+                long chunkChanged = 0;
+                for (Map<String, Serializable> row : rows) {
+                    String proposed = OpChangeStatus.plan(row, params).orElse(null);
+                    if (proposed == null) {
+                        continue;
+                    }
+                    DocumentModel doc = session.getDocument(new IdRef((String) row.get(NXQL.ECM_UUID)));
+                    if (!accept.test(doc)) {
+                        continue;
+                    }
+                    String current = (String) row.get(OpChangeStatus.XPATH_STATUS);
+                    // a document changed since the projection is skipped rather than overwritten
+                    if (contracts.transition(session, doc, current, proposed).outcome() == Outcome.APPLIED) {
+                        chunkChanged++;
+                    }
+                }
+                session.save();
+                if (TransactionHelper.isTransactionActive()) {
+                    TransactionHelper.commitOrRollbackTransaction();
+                    TransactionHelper.startTransaction();
+                }
+                lastId = (String) rows.get(rows.size() - 1).get(NXQL.ECM_UUID);
+                scanned += rows.size();
+                changed += chunkChanged;
+                checkpoint(jobId, lastId, scanned, changed);
+                ContractMetrics.scanned("statusJob", rows.size());
+                ContractMetrics.changed("statusJob", chunkChanged);
+            }
+        } catch (RuntimeException e) {
+            put(jobId, "state", State.FAILED.name());
+            put(jobId, "error", String.valueOf(e.getMessage()));
+            throw e;
+        }
+        return getStatus(jobId);
+    }
+}
@@ -0,0 +1,91 @@
+package com.ilias.service.impls;
+
+import com.ilias.service.interfaces.TypeCapabilityService;
+import org.nuxeo.ecm.core.schema.DocumentType;
+import org.nuxeo.ecm.core.schema.SchemaManager;
+import org.nuxeo.ecm.core.schema.types.Field;
+import org.nuxeo.ecm.core.schema.types.Schema;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentContext;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Field capabilities per document type, computed once from the SchemaManager. A hot reload of types restarts
+ * the components, so {@link #start} drops the cache and the next lookup sees the new schemas.
+ */
+public class TypeCapabilityServiceImpl extends DefaultComponent implements TypeCapabilityService {
+
+    protected record Capabilities(Map<String, Set<String>> fieldsByType, Set<String> knownFields) {
+    }
+
+    protected volatile Capabilities capabilities;
+
+    @Override
+    public void start(ComponentContext context) {
+        invalidate();
+    }
+
+    @Override
+    public void stop(ComponentContext context) {
+        invalidate();
+    }
+
+    @Override
+    public void invalidate() {
+        capabilities = null;
+    }
+
+    @Override
+    public boolean hasField(String type, String xpath) {
+        Set<String> fields = capabilities().fieldsByType().get(type);
+        return fields != null && fields.contains(topLevel(xpath));
+    }
+
+    @Override
+    public boolean isKnownField(String xpath) {
+        return capabilities().knownFields().contains(topLevel(xpath));
+    }
+
+    protected Capabilities capabilities() {
+        Capabilities current = capabilities;
+        if (current == null) {
+            synchronized (this) {
+                current = capabilities;
+                if (current == null) {
+                    current = build(Framework.getService(SchemaManager.class));
+                    capabilities = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    protected static Capabilities build(SchemaManager schemaManager) {
+        Map<String, Set<String>> fieldsByType = new HashMap<>();
+        Set<String> knownFields = new HashSet<>();
+        for (DocumentType type : schemaManager.getDocumentTypes()) {
+            Set<String> fields = new HashSet<>();
+            for (Schema schema : type.getSchemas()) {
+                for (Field field : schema.getFields()) {
+                    // both spellings resolve: prefix:name and schema:name
+                    fields.add(field.getName().getPrefixedName());
+                    fields.add(schema.getName() + ":" + field.getName().getLocalName());
+                }
+            }
+            knownFields.addAll(fields);
+            fieldsByType.put(type.getName(), Set.copyOf(fields));
+        }
+        return new Capabilities(Map.copyOf(fieldsByType), Set.copyOf(knownFields));
+    }
+
+    /** {@code files:files/0/file} is carried if {@code files:files} is. */
+    protected static String topLevel(String xpath) {
+        int slash = xpath.indexOf('/');
+        return slash < 0 ? xpath : xpath.substring(0, slash);
+    }
+}
@@ -0,0 +1,130 @@
+package com.ilias.service.impls;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.notify.ApprovalEvent;
+import com.ilias.notify.ApprovalOutboxProcessor;
+import com.ilias.notify.RateLimiter;
+import com.ilias.notify.WebhookBatcher;
+import com.ilias.service.interfaces.WebhookNotifier;
+import com.ilias.work.NotifyApprovalWork;
+import org.nuxeo.ecm.core.work.api.Work;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.log.LogAppender;
+import org.nuxeo.lib.stream.log.Name;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.ComponentContext;
+import org.nuxeo.runtime.model.DefaultComponent;
+import org.nuxeo.runtime.stream.StreamService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the shared {@link WebhookBatcher} for {@code ilias.webhook.url}, configured through
+ * {@code ilias.webhook.batch.size}, {@code ilias.webhook.batch.windowMs}, {@code ilias.webhook.retries},
+ * {@code ilias.webhook.backoffMs}, {@code ilias.webhook.maxInFlight} and {@code ilias.webhook.ratePerSecond}.
+ * <p>
+ * Unless {@code ilias.webhook.outbox} is {@code false}, approvals are appended to the
+ * {@link ApprovalOutboxProcessor#STREAM} log and posted by {@link ApprovalOutboxProcessor}, which delivers them
+ * at least once; otherwise they only live in the batcher's memory until sent.
+ */
+public class WebhookNotifierImpl extends DefaultComponent implements WebhookNotifier {
+
+    public static final String PROP_URL = "ilias.webhook.url";
+    public static final String PROP_BATCH_SIZE = "ilias.webhook.batch.size";
+    public static final String PROP_WINDOW_MS = "ilias.webhook.batch.windowMs";
+    public static final String PROP_RETRIES = "ilias.webhook.retries";
+    public static final String PROP_BACKOFF_MS = "ilias.webhook.backoffMs";
+    public static final String PROP_MAX_IN_FLIGHT = "ilias.webhook.maxInFlight";
+    public static final String PROP_RATE = "ilias.webhook.ratePerSecond";
+    public static final String PROP_OUTBOX = "ilias.webhook.outbox";
+
+    protected volatile WebhookBatcher batcher;
+
+    protected volatile LogAppender<Record> outbox;
+
+    /** Rate limiters by endpoint scheme and authority, shared by the batchers posting there until stop. */
+    protected final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Override
+    public void start(ComponentContext context) {
+        ContractMetrics.registerQueueGauge("scheduled", () -> {
+            WorkManager wm = Framework.getService(WorkManager.class);
+            String queueId = wm.getCategoryQueueId(NotifyApprovalWork.CATEGORY);
+            return (long) wm.getQueueSize(queueId, Work.State.SCHEDULED);
+        });
+        ContractMetrics.registerQueueGauge("pending", () -> batcher == null ? 0L : (long) batcher.getPendingCount());
+        ContractMetrics.registerQueueGauge("inflight", () -> batcher == null ? 0L : (long) batcher.getInFlightCount());
+        String url = Framework.getProperty(PROP_URL);
+        if (url == null || url.isBlank()) {
+            return;
+        }
+        if (!"false".equals(Framework.getProperty(PROP_OUTBOX, "true"))) {
+            outbox = Framework.getService(StreamService.class)
+                              .getLogManager()
+                              .getAppender(Name.ofUrn(ApprovalOutboxProcessor.STREAM));
+        }
+        URI uri = URI.create(url);
+        batcher = new WebhookBatcher(uri,
+                Integer.parseInt(Framework.getProperty(PROP_BATCH_SIZE, "100")),
+                Duration.ofMillis(Long.parseLong(Framework.getProperty(PROP_WINDOW_MS, "2000"))),
+                Integer.parseInt(Framework.getProperty(PROP_RETRIES, "3")),
+                Duration.ofMillis(Long.parseLong(Framework.getProperty(PROP_BACKOFF_MS, "500"))),
+                Integer.parseInt(Framework.getProperty(PROP_MAX_IN_FLIGHT,
+                        String.valueOf(WebhookBatcher.DEFAULT_MAX_IN_FLIGHT))),
+                limiterFor(uri, Double.parseDouble(Framework.getProperty(PROP_RATE, "0"))));
+    }
+
+    protected RateLimiter limiterFor(URI uri, double permitsPerSecond) {
+        return limiters.computeIfAbsent(uri.getScheme() + "://" + uri.getAuthority(),
+                k -> new RateLimiter(permitsPerSecond));
+    }
+
+    @Override
+    public void stop(ComponentContext context) {
+        ContractMetrics.removeQueueGauge("scheduled");
+        ContractMetrics.removeQueueGauge("pending");
+        ContractMetrics.removeQueueGauge("inflight");
+        outbox = null;
+        if (batcher != null) {
+            batcher.close();
+            batcher = null;
+        }
+        limiters.clear();
+    }
+
+    @Override
+    public void notifyApproved(ApprovalEvent event) {
+        if (outbox != null) {
+            outbox.append(event.id(), ApprovalOutboxProcessor.toRecord(event));
+        } else if (batcher != null) {
+            batcher.submit(event);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (batcher != null) {
+            batcher.flush();
+        }
+    }
+
+    @Override
+    public void deliver(List<String> jsonEvents) throws IOException {
+        if (jsonEvents.isEmpty()) {
+            return;
+        }
+        WebhookBatcher current = batcher;
+        if (current == null) {
+            // the caller checkpoints what returns normally: these approvals would be lost
+            throw new IllegalStateException("No webhook to deliver " + jsonEvents.size() + " approvals to, "
+                    + PROP_URL + " is not set or the notifier is stopped");
+        }
+        current.post("[" + String.join(",", jsonEvents) + "]", jsonEvents.size());
+    }
+}
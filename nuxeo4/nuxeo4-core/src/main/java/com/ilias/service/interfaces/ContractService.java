@@ -1,21 +1,88 @@
 package com.ilias.service.interfaces;
 
+import com.ilias.core.SubmitCore.SubmitParams;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.bulk.message.BulkStatus;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public interface ContractService {
+    String DRAFT = "Draft";
     String IN_REVIEW = "In Review";
     String APPROVED = "Approved";
+    String REJECTED = "Rejected";
+
+    /** The contract lifecycle, in order */
+    List<String> STATUSES = List.of(DRAFT, IN_REVIEW, APPROVED, REJECTED);
+
+    /** How a {@link #transition} ended. */
+    enum Outcome {
+        /** The status was {@code from} and is now {@code to} */
+        APPLIED,
+        /** The status was not {@code from} (possibly after a concurrent change), nothing written */
+        SKIPPED,
+        /** Every attempt lost the race against a concurrent writer */
+        CONFLICT,
+        /** The preconditions or the type check refused the document, nothing written (batch submit) */
+        REJECTED
+    }
+
+    /** Outcome of a transition and the document as last read or saved */
+    record Transition(Outcome outcome, DocumentModel doc) {
+    }
 
     /** Plan + apply submit for approval (title prefix + status) */
     DocumentModel submitForApproval(CoreSession session, DocumentModel doc);
 
+    /**
+     * Submit a list of documents with the same plan as {@link #submitForApproval}, saving the session once per
+     * chunk of {@code ilias.contract.batch.chunkSize} documents. Returns one outcome per document, in order.
+     */
+    List<Transition> submitForApprovalBatch(CoreSession session, List<DocumentModel> docs);
+
+    /**
+     * Same as {@link #submitForApprovalBatch(CoreSession, List)} with explicit plan parameters; documents failing
+     * {@code preconditions} or the type check are {@link Outcome#REJECTED}, unchanged ones {@link Outcome#SKIPPED}.
+     */
+    List<Transition> submitForApprovalBatch(CoreSession session, List<DocumentModel> docs, SubmitParams params,
+            Predicate<DocumentModel> preconditions);
+
     /** Approve a single contract if it’s in review */
     DocumentModel approveContract(CoreSession session, DocumentModel doc);
 
+    /**
+     * Approve every contract of the list that is in review, through {@link #transition}, which flushes each one.
+     * Returns one outcome per document, in order.
+     */
+    List<Transition> approveBatch(CoreSession session, List<DocumentModel> docs);
+
     /** Bulk approve by NXQL, returns updated doc ids (lightweight) */
     List<String> approveByQuery(CoreSession session, String nxql);
 
+    /** Approve every contract in review below {@code path}, through the indexed page provider; returns updated ids */
+    List<String> approveInPath(CoreSession session, String path);
+
+    /**
+     * Bulk approve by NXQL as a resumable {@link StatusJobService} job, committed and checkpointed chunk by chunk;
+     * returns the job id
+     */
+    String approveByQueryJob(CoreSession session, String nxql);
+
+    /** Bulk approve by NXQL as a distributed "contractApprove" bulk action, returns the command id */
+    String approveByQueryAsync(CoreSession session, String nxql);
+
+    /**
+     * Moves {@code contract:status} from {@code from} to {@code to} with a compare-and-set on the change token
+     * of {@code doc}: a concurrent write seen at save is retried on the re-read document. The session is flushed
+     * within the attempt, so a write committed by another node and only detected by the database is reported as
+     * {@link Outcome#CONFLICT} too; since the rejected write cannot be taken back, the transaction is then marked
+     * rollback-only. No lock is taken.
+     */
+    Transition transition(CoreSession session, DocumentModel doc, String from, String to);
+
+    /** Progress of a command submitted by {@link #approveByQueryAsync} */
+    BulkStatus getApproveStatus(String commandId);
+
 }
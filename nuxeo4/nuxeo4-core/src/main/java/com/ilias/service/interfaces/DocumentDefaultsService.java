@@ -0,0 +1,10 @@
+package com.ilias.service.interfaces;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+
+public interface DocumentDefaultsService {
+
+    /** Apply the contributed defaults for the document type in memory, returns true if anything changed */
+    boolean applyDefaults(DocumentModel doc);
+
+}
@@ -0,0 +1,19 @@
+package com.ilias.service.interfaces;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+
+import java.util.Map;
+
+public interface PathResolverService {
+
+    /** Same as {@code session.getDocument(new PathRef(path))}, by id when the path is cached */
+    DocumentModel resolve(CoreSession session, String path);
+
+    /** Forgets {@code path} and everything below it */
+    void invalidate(String repositoryName, String path);
+
+    /** hits, misses, evictions and size of the cache */
+    Map<String, Long> getStats();
+
+}
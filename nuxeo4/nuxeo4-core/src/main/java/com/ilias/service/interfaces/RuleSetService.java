@@ -0,0 +1,10 @@
+package com.ilias.service.interfaces;
+
+import com.ilias.fp.CompiledRuleSet;
+
+public interface RuleSetService {
+
+    /** The rule set compiled at startup for this id, null if none is contributed */
+    CompiledRuleSet getRuleSet(String id);
+
+}
@@ -0,0 +1,57 @@
+package com.ilias.service.interfaces;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Per-folder status counters. The store is not transactional, so changes are only recorded during the
+ * transaction, as {@link #COUNTERS_CHANGED} events, and written by {@link #apply} once it has committed.
+ */
+public interface StatusCounterService {
+
+    /** KeyValueService store holding one counter per folder and status */
+    String STORE = "contractStatusCounters";
+
+    /** Event fired in the transaction for each recorded change, applied by a post-commit listener */
+    String COUNTERS_CHANGED = "contractStatusCountersChanged";
+
+    /** {@code HashMap<String, Long>} of {@link #COUNTERS_CHANGED}: counter key -> delta */
+    String DELTAS_PROPERTY = "deltas";
+
+    /** {@code ArrayList<String>} of {@link #COUNTERS_CHANGED}: {@code <repository>:<folderId>} of removed folders */
+    String DROPPED_PROPERTY = "droppedFolders";
+
+    /** {@code String} of {@link #COUNTERS_CHANGED}: id of a copied folder, whose subtree is counted after commit */
+    String REBUILD_PROPERTY = "rebuildFolder";
+
+    /** Documents per {@link ContractService#STATUSES status} anywhere below the folder, from the counters */
+    Map<String, Long> getSummary(String repositoryName, String folderId);
+
+    /** Records that {@code doc} (and what is below it, for a folder) counts in all its ancestors */
+    void documentAdded(CoreSession session, DocumentModel doc);
+
+    /** Records a copy: {@link #documentAdded}, and for a folder the counting of its subtree after commit */
+    void documentCopied(CoreSession session, DocumentModel doc);
+
+    /**
+     * Records that {@code doc} (and what is below it, for a folder) no longer counts in its ancestors.
+     *
+     * @param deleted the document leaves the repository rather than moves, so the counters of the folders it
+     *            contains are dropped too
+     */
+    void documentRemoved(CoreSession session, DocumentModel doc, boolean deleted);
+
+    /** Records the move of one document from {@code from} to {@code to} in all its ancestors */
+    void statusChanged(CoreSession session, DocumentModel doc, String from, String to);
+
+    /** Writes the changes recorded by a committed transaction: adds the deltas, then drops the removed folders */
+    void apply(Map<String, Long> deltas, Collection<String> droppedFolders);
+
+    /** Recomputes the counters of {@code root} and every folder below it from a query, returns the documents counted */
+    long rebuild(CoreSession session, DocumentRef root);
+
+}
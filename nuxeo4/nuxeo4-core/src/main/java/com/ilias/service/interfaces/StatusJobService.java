@@ -0,0 +1,60 @@
+package com.ilias.service.interfaces;
+
+import com.ilias.core.SubmitCore.SubmitParams;
+import org.nuxeo.ecm.core.api.CoreSession;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+public interface StatusJobService {
+
+    /** KeyValueService store holding the definition and the checkpoint of every job */
+    String STORE = "contractStatusJobs";
+
+    enum State {
+        /** Scheduled, running, or interrupted and waiting for a {@link #resume} */
+        RUNNING,
+        DONE,
+        /** Stopped on an error; everything up to {@link JobStatus#lastId()} is committed */
+        FAILED
+    }
+
+    /** Progress of a job as of its last committed chunk */
+    record JobStatus(String id, State state, String lastId, long scanned, long changed, String error) {
+    }
+
+    /**
+     * Registers a job moving the documents of {@code nxql} to {@code params.statusInReview()}, without running it.
+     * The documents are walked in id order, a chunk at a time, and the last id of every committed chunk is kept
+     * as the checkpoint.
+     */
+    default String create(CoreSession session, String nxql, SubmitParams params) {
+        return create(session, nxql, params, null, Map.of());
+    }
+
+    /**
+     * {@link #create} for a query rendered from a rule set: the whole rule set, bound to the same {@code args},
+     * is checked on every document before it is changed, so its in-memory checks are not lost.
+     */
+    String create(CoreSession session, String nxql, SubmitParams params, String ruleSet, Map<String, String> args);
+
+    /** {@link #create} and schedule the job */
+    default String start(CoreSession session, String nxql, SubmitParams params) {
+        return start(session, nxql, params, null, Map.of());
+    }
+
+    String start(CoreSession session, String nxql, SubmitParams params, String ruleSet, Map<String, String> args);
+
+    /** Schedules the job again from its checkpoint; false when it is unknown or already done */
+    boolean resume(String jobId);
+
+    /** Null when the job is unknown or expired */
+    JobStatus getStatus(String jobId);
+
+    /**
+     * Runs the job from its checkpoint on the calling thread, committing after each chunk, until it is done or
+     * {@code stop} returns true between two chunks.
+     */
+    JobStatus run(String jobId, BooleanSupplier stop);
+
+}
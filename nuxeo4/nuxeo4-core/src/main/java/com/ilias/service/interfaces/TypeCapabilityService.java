@@ -0,0 +1,14 @@
+package com.ilias.service.interfaces;
+
+public interface TypeCapabilityService {
+
+    /** Whether documents of {@code type} carry {@code xpath}; one lookup, no property access */
+    boolean hasField(String type, String xpath);
+
+    /** Whether any schema declares {@code xpath} */
+    boolean isKnownField(String xpath);
+
+    /** Drops the cache; it is rebuilt from the SchemaManager on next use */
+    void invalidate();
+
+}
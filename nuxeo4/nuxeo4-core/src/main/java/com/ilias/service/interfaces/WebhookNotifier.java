@@ -0,0 +1,26 @@
+package com.ilias.service.interfaces;
+
+import com.ilias.notify.ApprovalEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface WebhookNotifier {
+
+    /**
+     * Queue an approval for the next webhook batch, no-op when no webhook is configured. With the outbox enabled
+     * the approval is appended to the contract/approvals stream and survives a restart.
+     */
+    void notifyApproved(ApprovalEvent event);
+
+    /** Send pending approvals now */
+    void flush();
+
+    /**
+     * Post already encoded approvals as one batch and wait for the webhook to accept them
+     *
+     * @throws IllegalStateException if no webhook is configured or the service is stopped
+     */
+    void deliver(List<String> jsonEvents) throws IOException;
+
+}
@@ -1,28 +1,35 @@
 package com.ilias.work;
 
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.notify.ApprovalEvent;
+import com.ilias.service.interfaces.WebhookNotifier;
+import io.dropwizard.metrics5.Timer;
 import org.nuxeo.ecm.core.api.*;
 import org.nuxeo.ecm.core.work.AbstractWork;
 import org.nuxeo.runtime.api.Framework;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
-import static jdk.internal.icu.impl.Utility.escape;
-
+/** Notifies the approval of a chunk of contracts, loaded together in one multi-id fetch. */
 public class NotifyApprovalWork extends AbstractWork {
 
     private static final Logger log = Logger.getLogger(NotifyApprovalWork.class.getName());
 
     public static final String CATEGORY = "contractNotify";
     private final String repositoryName;
-    private final String docId;
+    private final ArrayList<String> docIds;
 
-    public NotifyApprovalWork(String repositoryName, String docId) {
-        super("notify-approval:" + repositoryName + ":" + docId); // unique job id
+    public NotifyApprovalWork(String repositoryName, List<String> docIds) {
+        super(); // unique job id: each chunk is a distinct set of approvals
         this.repositoryName = repositoryName;
-        this.docId = docId;
+        this.docIds = new ArrayList<>(docIds);
+    }
+
+    /** The contracts this work notifies, in approval order. */
+    public List<String> getDocIds() {
+        return List.copyOf(docIds);
     }
 
     @Override
@@ -32,62 +39,38 @@ public class NotifyApprovalWork extends AbstractWork {
 
     @Override
     public String getTitle() {
-        return "";
+        return "Contract approval notification (" + docIds.size() + ")";
     }
 
     @Override
     public void work() {
-        setStatus("Preparing notification...");
-        CoreInstance.doPrivileged(repositoryName, (CoreSession session) -> {
-            DocumentModel doc = null;
-            try {
-                doc = session.getDocument(new IdRef(docId));
-            } catch (Exception e) {
-                log.warning("NotifyApprovalWork: document not found: " + docId);
-                return;
-            }
-
-            String title = doc.getTitle();
-            String path  = doc.getPathAsString();
-            String status = safeString(doc.getPropertyValue("contract:status"));
-            log.info(() -> String.format(
-                    "Contract approved -> id=%s title=%s path=%s status=%s", docId, title, path, status
-            ));
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.WORK, CATEGORY)) {
+            setStatus("Preparing notification...");
+            setProgress(new Progress(0, docIds.size()));
+            CoreInstance.doPrivileged(repositoryName, (CoreSession session) -> {
+                DocumentRef[] refs = docIds.stream().map(IdRef::new).toArray(DocumentRef[]::new);
+                DocumentModelList docs = session.getDocuments(refs);
+                if (docs.size() < docIds.size()) {
+                    log.warning("NotifyApprovalWork: " + (docIds.size() - docs.size()) + " documents not found");
+                }
 
-            String webhook = Framework.getProperty("ilias.webhook.url");
-            if (webhook != null && !webhook.isBlank()) {
-                try {
-                    sendWebhook(webhook, docId, title, path, status);
-                    log.info("NotifyApprovalWork: webhook sent to " + webhook);
-                } catch (Exception ex) {
-                    log.warning("NotifyApprovalWork: webhook failed: " + ex.getMessage());
+                WebhookNotifier notifier = Framework.getService(WebhookNotifier.class);
+                long done = 0;
+                for (DocumentModel doc : docs) {
+                    String status = safeString(doc.getPropertyValue("contract:status"));
+                    // appended to the outbox, then coalesced with other approvals and sent as one batch
+                    notifier.notifyApproved(
+                            new ApprovalEvent(doc.getId(), doc.getTitle(), doc.getPathAsString(), status));
+                    setProgress(new Progress(++done, docIds.size()));
                 }
-            }
-        });
-        setStatus("Done");
+                log.info(() -> String.format("Contract approved -> %d notifications queued", docs.size()));
+            });
+            setStatus("Done");
+        }
     }
 
     private static String safeString(Object o) {
         return o == null ? "" : String.valueOf(o);
     }
 
-    private static void sendWebhook(String url, String id, String title, String path, String status) throws Exception {
-        URL u = new URL(url);
-        HttpURLConnection conn = (HttpURLConnection) u.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Content-Type", "application/json");
-
-        String body = String.format(
-                "{\"id\":\"%s\",\"title\":\"%s\",\"path\":\"%s\",\"status\":\"%s\"}",
-                id, escape(title), escape(path), escape(status)
-        );
-        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
-        conn.getOutputStream().write(bytes);
-        int code = conn.getResponseCode();
-        if (code < 200 || code >= 300) {
-            throw new IllegalStateException("HTTP " + code + " from webhook");
-        }
-    }
-
 }
@@ -0,0 +1,48 @@
+package com.ilias.work;
+
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.service.interfaces.StatusJobService;
+import com.ilias.service.interfaces.StatusJobService.JobStatus;
+import io.dropwizard.metrics5.Timer;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Runs a {@link StatusJobService} job from its checkpoint. The id is derived from the job, so the job has at
+ * most one work queued or running; a work stopped by a shutdown suspends after its current chunk and the next
+ * one picks up from the checkpoint.
+ */
+public class StatusJobWork extends AbstractWork {
+
+    public static final String CATEGORY = "contractStatusJob";
+
+    private final String jobId;
+
+    public StatusJobWork(String jobId) {
+        super(CATEGORY + ":" + jobId);
+        this.jobId = jobId;
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return "Contract status job " + jobId;
+    }
+
+    @Override
+    public void work() {
+        try (Timer.Context ignored = ContractMetrics.time(ContractMetrics.WORK, CATEGORY)) {
+            setStatus("Running");
+            JobStatus status = Framework.getService(StatusJobService.class).run(jobId, this::isSuspending);
+            if (isSuspending()) {
+                suspended();
+                return;
+            }
+            setStatus(status == null ? "Unknown job" : status.state().name());
+        }
+    }
+}
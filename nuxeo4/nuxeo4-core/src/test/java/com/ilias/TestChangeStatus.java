@@ -0,0 +1,321 @@
+package com.ilias;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilias.ops.OpChangeStatus;
+import com.ilias.ops.OpChangeStatusReport;
+import com.ilias.ops.OpChangeStatusResults;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.automation.AutomationService;
+import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.core.OperationChain;
+import org.nuxeo.ecm.automation.core.util.PaginableDocumentModelList;
+import org.nuxeo.ecm.automation.test.AutomationFeature;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.WithFrameworkProperty;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+@RunWith(FeaturesRunner.class)
+@Features(AutomationFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("com.ilias.nuxeo4-core")
+@Deploy("com.ilias.nuxeo4-core:OSGI-INF/test-rulesets-contrib.xml")
+@WithFrameworkProperty(name = "ilias.changestatus.idsPerKey", value = "3")
+public class TestChangeStatus {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected AutomationService automationService;
+
+    protected DocumentModel createContract(String parentPath, String name, String title) {
+        DocumentModel doc = session.createDocument(session.createDocumentModel(parentPath, name, "Contract"));
+        if (title != null) {
+            doc.setPropertyValue("dc:title", title);
+            doc = session.saveDocument(doc);
+        }
+        return doc;
+    }
+
+    /** Contracts {@code /folder/contract<i>}, every third one already approved; returns the ids of the others. */
+    protected Set<String> createContracts(int count) {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        Set<String> draft = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            DocumentModel doc = createContract("/folder", "contract" + i, null);
+            if (i % 3 == 0) {
+                doc.setPropertyValue("contract:status", "Approved");
+                session.saveDocument(doc);
+            } else {
+                draft.add(doc.getId());
+            }
+        }
+        session.save();
+        nextTransaction();
+        return draft;
+    }
+
+    /** Contracts in {@code root}, in three child folders and one level below, every third one already approved. */
+    protected void createTree(String root) {
+        session.createDocument(session.createDocumentModel("/", root, "Folder"));
+        List<String> parents = new ArrayList<>(List.of("/" + root));
+        for (int f = 0; f < 3; f++) {
+            session.createDocument(session.createDocumentModel("/" + root, "sub" + f, "Folder"));
+            session.createDocument(session.createDocumentModel("/" + root + "/sub" + f, "deep", "Folder"));
+            parents.add("/" + root + "/sub" + f);
+            parents.add("/" + root + "/sub" + f + "/deep");
+        }
+        int n = 0;
+        for (String parent : parents) {
+            for (int i = 0; i < 4; i++, n++) {
+                DocumentModel doc = createContract(parent, "contract" + i, null);
+                if (n % 3 == 0) {
+                    doc.setPropertyValue("contract:status", "Approved");
+                    session.saveDocument(doc);
+                }
+            }
+        }
+        session.save();
+    }
+
+    /** Status of every contract under {@code root}, by path relative to it. */
+    protected Map<String, String> statuses(String root) {
+        Map<String, String> statuses = new TreeMap<>();
+        for (DocumentModel doc : session.query("SELECT * FROM Contract WHERE ecm:path STARTSWITH '/" + root + "'")) {
+            statuses.put(doc.getPathAsString().substring(root.length() + 1),
+                    (String) doc.getPropertyValue("contract:status"));
+        }
+        return statuses;
+    }
+
+    protected void nextTransaction() {
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+    }
+
+    protected void rollbackTransaction() {
+        TransactionHelper.setTransactionRollbackOnly();
+        nextTransaction();
+    }
+
+    protected long countApproved() {
+        return session.query("SELECT * FROM Contract WHERE contract:status = 'Approved'").size();
+    }
+
+    protected DocumentModelList changeStatus(Map<String, Object> params) throws OperationException {
+        return (DocumentModelList) automationService.run(new OperationContext(session), OpChangeStatus.ID, params);
+    }
+
+    protected Blob report(Map<String, Object> params) throws OperationException {
+        return (Blob) automationService.run(new OperationContext(session), OpChangeStatusReport.ID, params);
+    }
+
+    protected String status(String path) {
+        return (String) session.getDocument(new PathRef(path)).getPropertyValue("contract:status");
+    }
+
+    @Test
+    public void shouldStayUnderPathAndApplyInMemoryChecks() throws OperationException {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        session.createDocument(session.createDocumentModel("/", "other", "Folder"));
+        createContract("/folder", "open", null);
+        createContract("/folder", "signed", "[CONTRACT] Signed");
+        createContract("/other", "outside", null);
+        session.save();
+
+        for (boolean streaming : new boolean[] { false, true }) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("path", "/folder");
+            // the rule set has no path check, and its title check can only run in memory
+            params.put("ruleSet", "testUnsignedContracts");
+            params.put("streaming", streaming);
+            params.put("targetStatus", streaming ? "In Review" : "Approved");
+            DocumentModelList changed = changeStatus(params);
+
+            assertEquals(1, changed.size());
+            assertEquals(streaming ? "In Review" : "Approved", status("/folder/open"));
+            assertEquals("Draft", status("/folder/signed"));
+            assertEquals("Draft", status("/other/outside"));
+        }
+    }
+
+    @Test
+    public void shouldStreamInCommittedBatches() throws OperationException {
+        Set<String> draft = createContracts(12); // 8 to change, in batches of 5 scanned ids
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        params.put("streaming", true);
+        params.put("batchSize", 5);
+        DocumentModelList changed = changeStatus(params);
+
+        // only the documents whose status changed, each once
+        assertEquals(8, changed.size());
+        assertEquals(draft, changed.stream().map(DocumentModel::getId).collect(Collectors.toSet()));
+        // every batch was committed by the operation: rolling back the caller's transaction keeps them
+        rollbackTransaction();
+        assertEquals(12, countApproved());
+    }
+
+    @Test
+    public void shouldChangeInCallerTransactionWhenNotStreaming() throws OperationException {
+        createContracts(12);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        assertEquals(8, changeStatus(params).size());
+        assertEquals(12, countApproved());
+        rollbackTransaction();
+        assertEquals(4, countApproved());
+    }
+
+    @Test
+    public void shouldChangeTheSameInParallelAsSequentially() throws OperationException {
+        createTree("sequential");
+        createTree("parallel");
+        nextTransaction(); // the partitions run in their own sessions and transactions
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/sequential");
+        int sequential = changeStatus(params).size();
+
+        params.put("path", "/parallel");
+        params.put("parallel", true);
+        params.put("parallelism", 2); // fewer threads than the 4 partitions
+        params.put("batchSize", 3);
+        int parallel = changeStatus(params).size();
+        nextTransaction();
+
+        assertEquals(18, sequential); // 18 drafts out of 28 contracts
+        assertEquals(sequential, parallel);
+        Map<String, String> expected = statuses("sequential");
+        assertEquals(28, expected.size());
+        assertEquals(expected, statuses("parallel"));
+    }
+
+    @Test
+    public void shouldChainChangedDocumentsIntoDocumentOperations() throws OperationException {
+        Set<String> draft = createContracts(12);
+
+        OperationChain chain = new OperationChain("changeStatusThenDescribe");
+        chain.add(OpChangeStatus.ID).set("path", "/folder");
+        chain.add("Document.SetProperty").set("xpath", "dc:description").set("value", "changed");
+        DocumentModelList described = (DocumentModelList) automationService.run(new OperationContext(session), chain);
+
+        assertEquals(draft, described.stream().map(DocumentModel::getId).collect(Collectors.toSet()));
+        for (String id : draft) {
+            assertEquals("changed", session.getDocument(new IdRef(id)).getPropertyValue("dc:description"));
+        }
+    }
+
+    @Test
+    public void shouldLeaveDocumentsToTheDocumentOperation() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/");
+        params.put("resultMode", "documents");
+        try {
+            report(params);
+            fail("documents are the output of " + OpChangeStatus.ID);
+        } catch (OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(OpChangeStatus.ID));
+        }
+    }
+
+    @Test
+    public void shouldCountChanges() throws OperationException, IOException {
+        createContracts(12);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        params.put("resultMode", "count");
+        Blob count = report(params);
+
+        assertEquals(8, new ObjectMapper().readTree(count.getString()).get("changed").asLong());
+    }
+
+    @Test
+    public void shouldListChangedIds() throws OperationException, IOException {
+        Set<String> draft = createContracts(12);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        params.put("resultMode", "ids");
+        Blob ids = report(params);
+
+        List<String> lines = ids.getString().lines().toList();
+        assertEquals(8, lines.size());
+        assertEquals(draft, new HashSet<>(lines));
+    }
+
+    @Test
+    public void shouldPageThroughChangesWithTheReturnedCursor() throws OperationException, IOException {
+        Set<String> draft = createContracts(12);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        params.put("resultMode", "page");
+        params.put("pageSize", 3);
+        JsonNode envelope = new ObjectMapper().readTree(report(params).getString());
+        assertEquals(8, envelope.get("resultsCount").asLong());
+        assertEquals(3, envelope.get("pageSize").asInt());
+
+        // pages of 2 straddle the chunks of 3 ids the cursor is stored in
+        Set<String> paged = new HashSet<>();
+        int[] sizes = { 2, 2, 2, 2, 0 };
+        for (int index = 0; index < sizes.length; index++) {
+            Map<String, Object> pageParams = new HashMap<>();
+            pageParams.put("cursor", envelope.get("cursor").asText());
+            pageParams.put("currentPageIndex", index);
+            pageParams.put("pageSize", 2);
+            PaginableDocumentModelList page = (PaginableDocumentModelList) automationService.run(
+                    new OperationContext(session), OpChangeStatusResults.ID, pageParams);
+            assertEquals(sizes[index], page.size());
+            assertEquals(8, page.getResultsCount());
+            page.forEach(doc -> paged.add(doc.getId()));
+        }
+        assertEquals(draft, paged);
+    }
+
+    @Test
+    public void shouldRejectUnknownCursor() {
+        for (String cursor : new String[] { "not-a-cursor", "00000000-0000-0000-0000-000000000000" }) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("cursor", cursor);
+            try {
+                automationService.run(new OperationContext(session), OpChangeStatusResults.ID, params);
+                fail("Expected an unknown cursor for " + cursor);
+            } catch (OperationException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("Unknown or expired cursor"));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ilias;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilias.metrics.ContractMetrics;
+import com.ilias.ops.OpPlanStatusChange;
+import io.dropwizard.metrics5.MetricName;
+import io.dropwizard.metrics5.SharedMetricRegistries;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.automation.AutomationService;
+import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.test.AutomationFeature;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.metrics.MetricsService;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+@RunWith(FeaturesRunner.class)
+@Features(AutomationFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("com.ilias.nuxeo4-core")
+@Deploy("com.ilias.nuxeo4-core:OSGI-INF/test-rulesets-contrib.xml")
+public class TestPlanStatusChange {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected AutomationService automationService;
+
+    @Test
+    public void shouldPreviewWithoutWriting() throws OperationException, IOException {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        for (int i = 0; i < 3; i++) {
+            session.createDocument(session.createDocumentModel("/folder", "contract" + i, "Contract"));
+        }
+        session.createDocument(session.createDocumentModel("/folder", "file", "File"));
+        session.save();
+
+        OperationContext ctx = new OperationContext(session);
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        params.put("sampleSize", 2);
+        Blob preview = (Blob) automationService.run(ctx, OpPlanStatusChange.ID, params);
+
+        String json = preview.getString();
+        assertTrue(json, json.contains("\"affected\":3"));
+        assertTrue(json, json.contains("\"transitions\":{\"Draft -> Approved\":3}"));
+        assertEquals(2, json.substring(json.indexOf("\"sample\"")).split(",").length);
+        for (int i = 0; i < 3; i++) {
+            DocumentModel contract = session.getDocument(new PathRef("/folder/contract" + i));
+            assertEquals("Draft", contract.getPropertyValue("contract:status"));
+        }
+    }
+
+    @Test
+    public void shouldPreviewOnlyWhatTheChangeWouldTouch() throws OperationException, IOException {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        session.createDocument(session.createDocumentModel("/", "other", "Folder"));
+        session.createDocument(session.createDocumentModel("/folder", "open", "Contract"));
+        DocumentModel signed = session.createDocument(session.createDocumentModel("/folder", "signed", "Contract"));
+        signed.setPropertyValue("dc:title", "[CONTRACT] Signed");
+        session.saveDocument(signed);
+        session.createDocument(session.createDocumentModel("/other", "outside", "Contract"));
+        session.save();
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        params.put("ruleSet", "testUnsignedContracts");
+        Blob preview = (Blob) automationService.run(new OperationContext(session), OpPlanStatusChange.ID, params);
+
+        String json = preview.getString();
+        assertTrue(json, json.contains("\"scanned\":2"));
+        assertTrue(json, json.contains("\"affected\":1"));
+    }
+
+    @Test
+    public void shouldWriteValidJsonForAnyStatus() throws OperationException, IOException {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        session.createDocument(session.createDocumentModel("/folder", "contract", "Contract"));
+        session.save();
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        params.put("targetStatus", "\"Signed\"\tby legal\\");
+        Blob preview = (Blob) automationService.run(new OperationContext(session), OpPlanStatusChange.ID, params);
+
+        JsonNode json = new ObjectMapper().readTree(preview.getString());
+        assertEquals(1, json.get("affected").asLong());
+        assertEquals(1, json.get("transitions").get("Draft -> \"Signed\"\tby legal\\").asLong());
+        assertEquals(1, json.get("sample").size());
+    }
+
+    protected static long loaded() {
+        return SharedMetricRegistries.getOrCreate(MetricsService.class.getName())
+                                     .counter(MetricName.build(ContractMetrics.PREFIX, "bulk", "loaded")
+                                                        .tagged("call", OpPlanStatusChange.ID))
+                                     .getCount();
+    }
+
+    @Test
+    public void shouldPreviewDefaultRuleSetFromTheProjectionOnly() throws OperationException, IOException {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        for (int i = 0; i < 3; i++) {
+            session.createDocument(session.createDocumentModel("/folder", "contract" + i, "Contract"));
+        }
+        session.save();
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        long before = loaded();
+        Blob preview = (Blob) automationService.run(new OperationContext(session), OpPlanStatusChange.ID, params);
+
+        assertTrue(preview.getString(), preview.getString().contains("\"affected\":3"));
+        // type and field presence are answered from ecm:primaryType, no document is loaded
+        assertEquals(before, loaded());
+
+        // a title check needs the documents that would change
+        params.put("ruleSet", "testUnsignedContracts");
+        automationService.run(new OperationContext(session), OpPlanStatusChange.ID, params);
+        assertEquals(before + 3, loaded());
+    }
+}
@@ -0,0 +1,68 @@
+package com.ilias;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilias.ops.OpStatusSummary;
+import com.ilias.service.interfaces.ContractService;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.automation.AutomationService;
+import org.nuxeo.ecm.automation.OperationContext;
+import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.test.AutomationFeature;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+@RunWith(FeaturesRunner.class)
+@Features(AutomationFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("com.ilias.nuxeo4-core")
+@Deploy("com.ilias.nuxeo4-core:OSGI-INF/test-statuscounters-kv-contrib.xml")
+public class TestStatusSummary {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected AutomationService automationService;
+
+    @Test
+    public void shouldReturnCountsAsJson() throws OperationException, IOException {
+        DocumentModel folder = session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        session.createDocument(session.createDocumentModel("/folder", "draft", "Contract"));
+        DocumentModel approved = session.createDocument(session.createDocumentModel("/folder", "approved", "Contract"));
+        approved.setPropertyValue("contract:status", ContractService.APPROVED);
+        session.saveDocument(approved);
+        session.save();
+        // the counters are written after commit
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("path", "/folder");
+        Blob summary = (Blob) automationService.run(new OperationContext(session), OpStatusSummary.ID, params);
+
+        JsonNode json = new ObjectMapper().readTree(summary.getString());
+        assertEquals(folder.getId(), json.get("folderId").asText());
+        JsonNode counts = json.get("counts");
+        assertEquals(ContractService.STATUSES.size(), counts.size());
+        assertEquals(1, counts.get(ContractService.DRAFT).asLong());
+        assertEquals(1, counts.get(ContractService.APPROVED).asLong());
+        assertEquals(0, counts.get(ContractService.IN_REVIEW).asLong());
+    }
+}
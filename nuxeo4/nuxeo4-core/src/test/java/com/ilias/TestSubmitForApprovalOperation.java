@@ -1,10 +1,13 @@
 package com.ilias;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import com.ilias.ops.OpSubmitForApproval;
 import jakarta.inject.Inject;
 
 import org.junit.Test;
@@ -15,7 +18,10 @@ import org.nuxeo.ecm.automation.OperationException;
 import org.nuxeo.ecm.automation.test.AutomationFeature;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
-import org.nuxeo.ecm.core.test.DefaultRepositoryInit;
+import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.DocumentRefList;
+import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
+import org.nuxeo.ecm.core.api.impl.DocumentRefListImpl;
 import org.nuxeo.ecm.core.test.annotations.Granularity;
 import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
 import org.nuxeo.runtime.test.runner.Deploy;
@@ -24,7 +30,7 @@ import org.nuxeo.runtime.test.runner.FeaturesRunner;
 
 @RunWith(FeaturesRunner.class)
 @Features(AutomationFeature.class)
-@RepositoryConfig(init = DefaultRepositoryInit.class, cleanup = Granularity.METHOD)
+@RepositoryConfig(cleanup = Granularity.METHOD)
 @Deploy("com.ilias.nuxeo4-core")
 public class TestSubmitForApprovalOperation {
 
@@ -34,20 +40,109 @@ public class TestSubmitForApprovalOperation {
     @Inject
     protected AutomationService automationService;
 
-    @Test
-    public void shouldCallTheOperation() throws OperationException {
+    protected DocumentModel create(String name, String type) {
+        DocumentModel doc = session.createDocumentModel("/", name, type);
+        doc.setPropertyValue("dc:title", name);
+        doc = session.createDocument(doc);
+        session.save();
+        return doc;
+    }
+
+    protected Object submit(Object input, Map<String, Object> params) throws OperationException {
         OperationContext ctx = new OperationContext(session);
-        DocumentModel doc = (DocumentModel) automationService.run(ctx, SubmitForApprovalOperation.ID);
-        assertEquals("/", doc.getPathAsString());
+        ctx.setInput(input);
+        return automationService.run(ctx, OpSubmitForApproval.ID, params);
+    }
+
+    protected void assertSubmitted(DocumentModel before) {
+        DocumentModel doc = session.getDocument(before.getRef());
+        assertEquals("In Review", doc.getPropertyValue("contract:status"));
+        assertEquals("[SUBMITTED] " + before.getTitle(), doc.getTitle());
+    }
+
+    protected void assertUnchanged(DocumentModel before) {
+        DocumentModel doc = session.getDocument(before.getRef());
+        assertEquals(before.getTitle(), doc.getTitle());
+        if (doc.hasSchema("contract")) {
+            assertEquals(before.getPropertyValue("contract:status"), doc.getPropertyValue("contract:status"));
+        }
     }
 
     @Test
-    public void shouldCallWithParameters() throws OperationException {
-        final String path = "/default-domain";
-        OperationContext ctx = new OperationContext(session);
+    public void shouldSubmitDocument() throws OperationException {
+        DocumentModel contract = create("contract", "Contract");
+
+        DocumentModel doc = (DocumentModel) submit(contract, new HashMap<>());
+
+        assertEquals(contract.getId(), doc.getId());
+        assertSubmitted(contract);
+    }
+
+    @Test
+    public void shouldRefuseDocumentFailingPreconditions() {
+        DocumentModel file = create("file", "File");
+        try {
+            submit(file, new HashMap<>());
+            fail("a File is not a Contract");
+        } catch (OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("preconditions failed"));
+        }
+        assertUnchanged(file);
+    }
+
+    @Test
+    public void shouldSubmitDocumentList() throws OperationException {
+        DocumentModel first = create("first", "Contract");
+        DocumentModel second = create("second", "Contract");
+        DocumentModelList docs = new DocumentModelListImpl();
+        docs.add(first);
+        docs.add(second);
+
+        DocumentModelList submitted = (DocumentModelList) submit(docs, new HashMap<>());
+
+        assertEquals(2, submitted.size());
+        assertSubmitted(first);
+        assertSubmitted(second);
+    }
+
+    @Test
+    public void shouldSubmitDocumentRefList() throws OperationException {
+        DocumentModel first = create("first", "Contract");
+        DocumentModel second = create("second", "Contract");
+        DocumentRefList refs = new DocumentRefListImpl();
+        refs.add(first.getRef());
+        refs.add(second.getRef());
+
+        DocumentModelList submitted = (DocumentModelList) submit(refs, new HashMap<>());
+
+        assertEquals(2, submitted.size());
+        assertSubmitted(first);
+        assertSubmitted(second);
+    }
+
+    @Test
+    public void shouldRefuseWholeListUnlessSkippingRejected() throws OperationException {
+        DocumentModel contract = create("contract", "Contract");
+        DocumentModel file = create("file", "File");
+        DocumentModelList docs = new DocumentModelListImpl();
+        docs.add(contract);
+        docs.add(file);
+
+        try {
+            submit(docs, new HashMap<>());
+            fail("the File must fail the whole list");
+        } catch (OperationException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(file.getId()));
+        }
+        assertUnchanged(contract);
+        assertUnchanged(file);
+
         Map<String, Object> params = new HashMap<>();
-        params.put("path", path);
-        DocumentModel doc = (DocumentModel) automationService.run(ctx, SubmitForApprovalOperation.ID, params);
-        assertEquals(path, doc.getPathAsString());
+        params.put("skipRejected", true);
+        DocumentModelList submitted = (DocumentModelList) submit(docs, params);
+
+        assertEquals(2, submitted.size());
+        assertSubmitted(contract);
+        assertUnchanged(file);
     }
 }
@@ -0,0 +1,57 @@
+package com.ilias.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TestPathIdCache {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final PathIdCache cache = new PathIdCache(3, Duration.ofSeconds(10), now::get);
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        assertNull(cache.get("default:/a"));
+        cache.put("default:/a", "id-a");
+        assertEquals("id-a", cache.get("default:/a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        cache.put("default:/a", "id-a");
+        cache.put("default:/b", "id-b");
+        cache.put("default:/c", "id-c");
+        cache.get("default:/a");
+        cache.put("default:/d", "id-d");
+        assertEquals(3, cache.size());
+        assertNull(cache.get("default:/b"));
+        assertEquals("id-a", cache.get("default:/a"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void shouldExpireAfterTtl() {
+        cache.put("default:/a", "id-a");
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertNull(cache.get("default:/a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldInvalidateSubtreeOnly() {
+        cache.put("default:/a", "id-a");
+        cache.put("default:/a/b", "id-b");
+        cache.put("default:/ab", "id-ab");
+        cache.invalidate("default:/a");
+        assertNull(cache.get("default:/a"));
+        assertNull(cache.get("default:/a/b"));
+        assertEquals("id-ab", cache.get("default:/ab"));
+    }
+}
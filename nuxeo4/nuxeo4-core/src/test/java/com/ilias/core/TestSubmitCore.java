@@ -0,0 +1,88 @@
+package com.ilias.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ilias.core.SubmitCore.DocPatch;
+import com.ilias.core.SubmitCore.DocView;
+import com.ilias.core.SubmitCore.PatchBuffer;
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.core.SubmitCore.ViewBatch;
+
+public class TestSubmitCore {
+
+    protected static List<DocView> views() {
+        List<DocView> views = new ArrayList<>();
+        for (String type : new String[] { "Contract", "File", "", null }) {
+            for (String title : new String[] { "Lease", "[SUBMITTED] Lease", "", null }) {
+                views.add(new DocView(type, title, true));
+                views.add(new DocView(type, title, false));
+            }
+        }
+        return views;
+    }
+
+    protected static List<SubmitParams> params() {
+        List<SubmitParams> params = new ArrayList<>();
+        for (String prefix : new String[] { "[SUBMITTED] ", "", "  ", null }) {
+            for (String status : new String[] { "In Review", "", null }) {
+                params.add(new SubmitParams("Contract", status, prefix, true));
+                params.add(new SubmitParams("Contract", status, prefix, false));
+            }
+        }
+        return params;
+    }
+
+    @Test
+    public void batchPlanMatchesSinglePlan() {
+        List<DocView> views = views();
+        ViewBatch batch = new ViewBatch(4); // grows
+        PatchBuffer out = new PatchBuffer(4);
+        for (DocView v : views) {
+            batch.add(v.type(), v.title(), v.hasStatusProperty());
+        }
+        for (SubmitParams p : params()) {
+            SubmitCore.planBatch(batch, p, out);
+            assertEquals(views.size(), out.size());
+            for (int i = 0; i < views.size(); i++) {
+                DocPatch expected;
+                try {
+                    expected = DocPatch.plan(views.get(i), p);
+                } catch (IllegalArgumentException e) {
+                    assertTrue(out.isRejected(i));
+                    continue;
+                }
+                assertFalse(out.isRejected(i));
+                assertEquals(expected, out.toPatch(i));
+                assertEquals(expected.isEmpty(), out.isEmpty(i));
+            }
+        }
+    }
+
+    @Test
+    public void bufferIsReusedAcrossBatches() {
+        SubmitParams p = new SubmitParams("Contract", "In Review", "[SUBMITTED] ", false);
+        ViewBatch batch = new ViewBatch(8);
+        PatchBuffer out = new PatchBuffer(8);
+        batch.add("Contract", "A", true);
+        batch.add("Contract", "B", true);
+        SubmitCore.planBatch(batch, p, out);
+        assertEquals("[SUBMITTED] B", out.newTitle(1));
+
+        batch.clear();
+        batch.add("Contract", "[SUBMITTED] C", true);
+        SubmitCore.planBatch(batch, p, out);
+        assertEquals(1, out.size());
+        assertFalse(out.hasNewTitle(0));
+        assertNull(out.newTitle(0));
+        assertTrue(out.hasNewStatus(0));
+        assertEquals("In Review", out.newStatus());
+    }
+}
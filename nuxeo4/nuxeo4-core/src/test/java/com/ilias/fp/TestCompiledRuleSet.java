@@ -0,0 +1,75 @@
+package com.ilias.fp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import com.ilias.fp.RuleSetDescriptor.RuleDescriptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
+
+public class TestCompiledRuleSet {
+
+    private static RuleDescriptor rule(String check, String xpath, String value, boolean optional) {
+        RuleDescriptor rule = new RuleDescriptor();
+        rule.check = check;
+        rule.xpath = xpath;
+        rule.value = value;
+        rule.optional = optional;
+        return rule;
+    }
+
+    private static CompiledRuleSet changeStatus() {
+        RuleSetDescriptor descriptor = new RuleSetDescriptor();
+        descriptor.id = "contractChangeStatus";
+        descriptor.rules = List.of(rule("pathStartsWith", null, "${path}", false),
+                rule("typeIs", null, "${requiredType}", false),
+                rule("propertyEquals", "contract:status", "${onlyIfCurrentStatus}", true));
+        return CompiledRuleSet.compile(descriptor);
+    }
+
+    @Test
+    public void shouldBindArgumentsIntoNxql() {
+        Map<String, String> args = new HashMap<>();
+        args.put("path", "/default-domain");
+        args.put("requiredType", "Contract");
+        args.put("onlyIfCurrentStatus", "Draft");
+        assertEquals("ecm:path STARTSWITH '/default-domain' AND ecm:primaryType = 'Contract'"
+                + " AND contract:status = 'Draft'", changeStatus().bind(args).toRule().toNxql().get());
+    }
+
+    @Test
+    public void shouldSkipOptionalRuleWhenArgumentIsBlank() {
+        Map<String, String> args = new HashMap<>();
+        args.put("path", "/default-domain");
+        args.put("requiredType", "Contract");
+        assertEquals("ecm:path STARTSWITH '/default-domain' AND ecm:primaryType = 'Contract'",
+                changeStatus().bind(args).toRule().toNxql().get());
+    }
+
+    @Test
+    public void shouldReorderBySelectivity() {
+        RuleSetDescriptor descriptor = new RuleSetDescriptor();
+        descriptor.id = "test";
+        descriptor.rules = List.of(rule("pathStartsWith", null, "/", false), rule("typeIs", null, "Contract", false));
+        CompiledRuleSet rules = CompiledRuleSet.compile(descriptor);
+        assertEquals(List.of("pathStartsWith", "typeIs"), rules.getOrder());
+
+        DocumentModel file = new DocumentModelImpl("/", "file", "File");
+        CompiledRuleSet.Evaluator evaluator = rules.bind(Map.of());
+        for (int i = 0; i < CompiledRuleSet.REORDER_INTERVAL * 2; i++) {
+            evaluator.test(file);
+        }
+        // typeIs rejects every document, pathStartsWith none: the rejecting check must now run first
+        assertEquals(List.of("typeIs", "pathStartsWith"), rules.getOrder());
+        assertEquals("typeIs", evaluator.firstRejecting(file));
+        assertNull(evaluator.firstRejecting(new DocumentModelImpl("/", "contract", "Contract")));
+        assertFalse(evaluator.test(new DocumentModelImpl("/", "note", "Note")));
+    }
+}
@@ -0,0 +1,89 @@
+package com.ilias.fp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import com.ilias.fp.DocRule.Rule;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestDocRule {
+
+    @Test
+    public void shouldRenderConjunctionAsNxql() {
+        Rule rule = DocRule.allOf(DocRule.pathStartsWith("/default-domain/it's"), DocRule.typeIs("Contract"),
+                DocRule.propertyEquals("contract:status", "In Review"));
+        assertEquals("ecm:path STARTSWITH '/default-domain/it\\'s' AND ecm:primaryType = 'Contract'"
+                + " AND contract:status = 'In Review'", rule.toNxql().get());
+        assertSame(DocRule.ALWAYS, rule.residual());
+    }
+
+    @Test
+    public void shouldKeepInMemoryRulesAsResidual() {
+        Rule hasStatus = DocRule.hasProperty("contract:status");
+        Rule rule = DocRule.typeIs("Contract").and(hasStatus);
+        assertEquals("ecm:primaryType = 'Contract'", rule.toNxql().get());
+        assertSame(hasStatus, rule.residual());
+        assertFalse(hasStatus.toNxql().isPresent());
+    }
+
+    @Test
+    public void shouldSettleTypeChecksFromTheType() {
+        Rule titled = new DocRule.Opaque(DocRule.hasTitle);
+        Rule rule = DocRule.allOf(DocRule.typeIs("Contract"), titled);
+        assertSame(DocRule.NEVER, rule.residualForType("File"));
+        assertSame(titled, rule.residualForType("Contract"));
+        assertSame(DocRule.ALWAYS, DocRule.typeIs("Contract").residualForType("Contract"));
+        // without a schema registry, field presence can only be probed on the document
+        Rule hasStatus = DocRule.hasProperty("contract:status");
+        assertSame(hasStatus, hasStatus.residualForType("Contract"));
+    }
+
+    @Test
+    public void shouldBuildSelect() {
+        assertEquals("SELECT * FROM Document WHERE ecm:primaryType = 'Contract' AND ecm:isProxy = 0",
+                DocRule.select("*", "Document", DocRule.typeIsContract, "ecm:isProxy = 0"));
+        assertEquals("SELECT * FROM Document", DocRule.select("*", "Document", DocRule.ALWAYS, null));
+    }
+
+    @Test
+    public void shouldRestrictExistingQuery() {
+        Rule inReview = DocRule.propertyEquals("contract:status", "In Review");
+        assertEquals("SELECT * FROM Contract WHERE contract:status = 'In Review'",
+                DocRule.restrict("SELECT * FROM Contract", inReview));
+        assertEquals("SELECT * FROM Document WHERE (ecm:isProxy = 0 OR ecm:isVersion = 0)"
+                + " AND contract:status = 'In Review' ORDER BY dc:title",
+                DocRule.restrict("SELECT * FROM Document WHERE ecm:isProxy = 0 OR ecm:isVersion = 0 ORDER BY dc:title",
+                        inReview));
+    }
+
+    @Test
+    public void shouldRewriteClausesNotText() {
+        Rule inReview = DocRule.propertyEquals("contract:status", "In Review");
+        assertEquals("SELECT * FROM Document WHERE dc:title = 'a WHERE b ORDER BY c' AND contract:status = 'In Review'"
+                + " ORDER BY dc:title DESC",
+                DocRule.restrict("SELECT * FROM Document WHERE dc:title = 'a WHERE b ORDER BY c'"
+                        + " ORDER BY dc:title DESC", inReview));
+        assertEquals("SELECT ecm:uuid FROM Contract WHERE ecm:isProxy = 0 AND dc:title = 'it\\'s' ORDER BY dc:title",
+                DocRule.selectColumns("SELECT *\nFROM Contract\n\tWHERE ecm:isProxy = 0 AND dc:title = 'it\\'s'\n"
+                        + "ORDER BY dc:title", "ecm:uuid"));
+        assertEquals("SELECT * FROM Document WHERE dc:description = ' FROM x ORDER BY y' ORDER BY ecm:uuid",
+                DocRule.orderBy("SELECT * FROM Document\r\nWHERE dc:description = ' FROM x ORDER BY y'\r\n"
+                        + "ORDER BY dc:title", "ecm:uuid"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidQuery() {
+        DocRule.restrict("SELECT * WHERE", DocRule.typeIsContract);
+    }
+
+    @Test
+    public void shouldProjectColumnsAndIds() {
+        assertEquals("SELECT ecm:uuid, contract:status FROM Contract WHERE ecm:isProxy = 0",
+                DocRule.selectColumns("SELECT * FROM Contract WHERE ecm:isProxy = 0", "ecm:uuid", "contract:status"));
+        assertEquals("ecm:uuid IN ('a', 'b')", DocRule.idIn(List.of("a", "b")).toNxql().get());
+    }
+}
@@ -0,0 +1,89 @@
+package com.ilias.listeners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ilias.work.NotifyApprovalWork;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.ecm.core.work.api.Work;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.WithFrameworkProperty;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("com.ilias.nuxeo4-core")
+@Deploy("com.ilias.nuxeo4-core:OSGI-INF/test-contractnotify-workqueue-contrib.xml")
+@WithFrameworkProperty(name = ContractApprovedBundleListener.PROP_CHUNK_SIZE, value = "3")
+public class TestContractApprovedBundleListener {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected WorkManager workManager;
+
+    protected DocumentModel setStatus(DocumentModel doc, String status) {
+        doc.setPropertyValue("contract:status", status);
+        return session.saveDocument(doc);
+    }
+
+    /** The notification works scheduled so far, each as the ids it carries. */
+    protected Set<List<String>> scheduledChunks() {
+        String queueId = workManager.getCategoryQueueId(NotifyApprovalWork.CATEGORY);
+        Set<List<String>> chunks = new HashSet<>();
+        for (String workId : workManager.listWorkIds(queueId, Work.State.SCHEDULED)) {
+            Work work = workManager.find(workId, Work.State.SCHEDULED);
+            assertNotNull(workId, work);
+            chunks.add(((NotifyApprovalWork) work).getDocIds());
+        }
+        return chunks;
+    }
+
+    @Test
+    public void shouldScheduleOneWorkPerChunkOfApprovals() {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        List<DocumentModel> contracts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            contracts.add(session.createDocument(session.createDocumentModel("/folder", "contract" + i, "Contract")));
+        }
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+        assertEquals(Set.of(), scheduledChunks());
+
+        // 10 approvals in one transaction, the first one twice
+        List<String> approved = new ArrayList<>();
+        for (DocumentModel contract : contracts) {
+            approved.add(setStatus(contract, "Approved").getId());
+        }
+        setStatus(setStatus(session.getDocument(contracts.get(0).getRef()), "Draft"), "Approved");
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        // chunks of 3 in approval order, each document once
+        Set<List<String>> expected = Set.of(approved.subList(0, 3), approved.subList(3, 6), approved.subList(6, 9),
+                approved.subList(9, 10));
+        String queueId = workManager.getCategoryQueueId(NotifyApprovalWork.CATEGORY);
+        assertEquals(4, workManager.getQueueSize(queueId, Work.State.SCHEDULED));
+        assertEquals(expected, scheduledChunks());
+    }
+}
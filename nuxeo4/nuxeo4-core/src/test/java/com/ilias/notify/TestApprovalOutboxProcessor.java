@@ -0,0 +1,119 @@
+package com.ilias.notify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.nuxeo.lib.stream.computation.ComputationContext;
+import org.nuxeo.lib.stream.computation.Record;
+
+import com.ilias.notify.ApprovalOutboxProcessor.ApprovalOutboxComputation;
+import com.ilias.service.impls.WebhookNotifierImpl;
+
+public class TestApprovalOutboxProcessor {
+
+    /** Posts recorded as the webhook received them. */
+    protected final List<List<String>> posts = new ArrayList<>();
+
+    /** Number of posts to fail before accepting. */
+    protected final AtomicInteger failuresLeft = new AtomicInteger();
+
+    protected final AtomicInteger checkpoints = new AtomicInteger();
+
+    protected final ComputationContext context = (ComputationContext) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { ComputationContext.class }, (proxy, method, args) -> {
+                if ("askForCheckpoint".equals(method.getName())) {
+                    checkpoints.incrementAndGet();
+                }
+                Class<?> type = method.getReturnType();
+                return type == boolean.class ? Boolean.FALSE : type == int.class ? 0 : type == long.class ? 0L : null;
+            });
+
+    protected ApprovalOutboxComputation computation(int batchSize) {
+        ApprovalOutboxComputation computation = new ApprovalOutboxComputation(batchSize, 60_000) {
+            @Override
+            protected void deliver(List<String> jsonEvents) throws IOException {
+                if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    throw new IOException("webhook answered 503");
+                }
+                posts.add(List.copyOf(jsonEvents));
+            }
+        };
+        computation.init(context);
+        return computation;
+    }
+
+    protected static List<Record> records(int count) {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(ApprovalOutboxProcessor.toRecord(new ApprovalEvent("id-" + i, "", "", "Approved")));
+        }
+        return records;
+    }
+
+    protected static List<String> json(List<Record> records) {
+        return records.stream().map(record -> new String(record.getData(), StandardCharsets.UTF_8)).toList();
+    }
+
+    @Test
+    public void shouldNotCheckpointAFailedPostAndDeliverOnRetry() {
+        List<Record> records = records(3);
+        ApprovalOutboxComputation computation = computation(3);
+        failuresLeft.set(1);
+        computation.processRecord(context, "i1", records.get(0));
+        computation.processRecord(context, "i1", records.get(1));
+        try {
+            computation.processRecord(context, "i1", records.get(2));
+            fail("the failed post must reach the processor policy");
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+        assertEquals(0, checkpoints.get());
+        assertEquals(List.of(), posts);
+
+        // the policy hands the failed record again
+        computation.processRecord(context, "i1", records.get(2));
+        assertEquals(List.of(json(records)), posts);
+        assertEquals(1, checkpoints.get());
+    }
+
+    @Test
+    public void shouldReplayRecordsAfterAFailedTimedPost() {
+        List<Record> records = records(2);
+        ApprovalOutboxComputation computation = computation(10);
+        failuresLeft.set(1);
+        records.forEach(record -> computation.processRecord(context, "i1", record));
+        try {
+            computation.processTimer(context, "flush", System.currentTimeMillis());
+            fail("the failed post must reach the processor policy");
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+        assertEquals(0, checkpoints.get());
+
+        // nothing was checkpointed: after a restart, the records are read again from the last checkpoint
+        ApprovalOutboxComputation restarted = computation(10);
+        records.forEach(record -> restarted.processRecord(context, "i1", record));
+        restarted.processTimer(context, "flush", System.currentTimeMillis());
+        assertEquals(List.of(json(records)), posts);
+        assertEquals(1, checkpoints.get());
+    }
+
+    @Test
+    public void shouldFailDeliveryWithoutWebhook() throws IOException {
+        try {
+            new WebhookNotifierImpl().deliver(List.of(new ApprovalEvent("id", "", "", "Approved").toJson()));
+            fail("approvals must not be acknowledged when there is nowhere to send them");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.ilias.notify;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestWebhookBatcher {
+
+    protected HttpServer server;
+
+    protected final List<String> bodies = new CopyOnWriteArrayList<>();
+
+    /** Number of requests to answer with 503 before accepting. */
+    protected final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @Before
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/hook", this::handle);
+        server.start();
+    }
+
+    @After
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    protected void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        int code = failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? 503 : 200;
+        if (code == 200) {
+            bodies.add(body);
+        }
+        exchange.sendResponseHeaders(code, -1);
+        exchange.close();
+    }
+
+    protected URI uri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/hook");
+    }
+
+    protected static int countEvents(String body) {
+        return body.split("\"id\":", -1).length - 1;
+    }
+
+    @Test
+    public void shouldCoalesceBySizeAndWindow() {
+        int total = 2_500;
+        try (WebhookBatcher batcher = new WebhookBatcher(uri(), 100, Duration.ofMillis(200), 0, Duration.ofMillis(10))) {
+            for (int i = 0; i < total; i++) {
+                batcher.submit(new ApprovalEvent("id-" + i, "Contract \"" + i + "\"", "/c/" + i, "Approved"));
+            }
+            batcher.flush();
+            assertEquals(total, batcher.getSentEvents());
+        }
+        assertEquals(25, bodies.size());
+        assertEquals(total, bodies.stream().mapToInt(TestWebhookBatcher::countEvents).sum());
+        // batches are posted concurrently, so only the order within a batch is kept
+        assertTrue(bodies.stream().anyMatch(b -> b.startsWith("[{\"id\":\"id-0\",\"title\":\"Contract \\\"0\\\"\"")));
+    }
+
+    @Test
+    public void shouldFlushPartialBatchAfterWindow() throws InterruptedException {
+        try (WebhookBatcher batcher = new WebhookBatcher(uri(), 100, Duration.ofMillis(50), 0, Duration.ofMillis(10))) {
+            batcher.submit(new ApprovalEvent("a", "A", "/a", "Approved"));
+            batcher.submit(new ApprovalEvent("b", "B", "/b", "Approved"));
+            for (int i = 0; i < 100 && bodies.isEmpty(); i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, bodies.size());
+            assertEquals(2, countEvents(bodies.get(0)));
+        }
+    }
+
+    @Test
+    public void shouldRetryWithBackoff() {
+        failuresLeft.set(2);
+        try (WebhookBatcher batcher = new WebhookBatcher(uri(), 10, Duration.ofSeconds(10), 3, Duration.ofMillis(10))) {
+            for (int i = 0; i < 10; i++) {
+                batcher.submit(new ApprovalEvent("id-" + i, "", "", "Approved"));
+            }
+            batcher.flush();
+            assertEquals(10, batcher.getSentEvents());
+            assertEquals(0, batcher.getFailedEvents());
+        }
+        assertEquals(1, bodies.size());
+    }
+
+    @Test
+    public void shouldDropAfterRetriesExhausted() {
+        failuresLeft.set(10);
+        try (WebhookBatcher batcher = new WebhookBatcher(uri(), 5, Duration.ofSeconds(10), 1, Duration.ofMillis(10))) {
+            for (int i = 0; i < 5; i++) {
+                batcher.submit(new ApprovalEvent("id-" + i, "", "", "Approved"));
+            }
+            batcher.flush();
+            assertEquals(5, batcher.getFailedEvents());
+        }
+        assertTrue(bodies.isEmpty());
+    }
+
+    @Test
+    public void shouldPaceRequestsToTheEndpoint() {
+        long start = System.nanoTime();
+        try (WebhookBatcher batcher = new WebhookBatcher(uri(), 1, Duration.ofSeconds(10), 0, Duration.ofMillis(10),
+                100, new RateLimiter(20))) {
+            for (int i = 0; i < 5; i++) {
+                batcher.submit(new ApprovalEvent("id-" + i, "", "", "Approved"));
+            }
+            batcher.flush();
+            assertEquals(5, batcher.getSentEvents());
+            assertEquals(0, batcher.getInFlightCount());
+        }
+        // 20 requests per second: the fifth one waits for four intervals of 50 ms
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 190);
+        assertEquals(5, bodies.size());
+    }
+
+    @Test
+    public void shouldReportFailedPostToCaller() throws IOException {
+        failuresLeft.set(3);
+        try (WebhookBatcher batcher = new WebhookBatcher(uri(), 10, Duration.ofSeconds(10), 1, Duration.ofMillis(10))) {
+            String body = "[" + new ApprovalEvent("a", "A", "/a", "Approved").toJson() + "]";
+            try {
+                batcher.post(body, 1);
+                fail("post should fail once retries are exhausted");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("HTTP 503"));
+            }
+            // the caller keeps the events: nothing is counted as dropped
+            assertEquals(0, batcher.getFailedEvents());
+            batcher.post(body, 1);
+            assertEquals(1, batcher.getSentEvents());
+        }
+        assertEquals(1, bodies.size());
+    }
+}
@@ -0,0 +1,223 @@
+package com.ilias.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.query.ContractQueries;
+import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.ContractService.Outcome;
+import com.ilias.service.interfaces.ContractService.Transition;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("org.nuxeo.ecm.platform.query.api")
+@Deploy("com.ilias.nuxeo4-core")
+public class TestContractTransitions {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected ContractService contractService;
+
+    protected List<String> createInReview(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "contract" + i, "Contract");
+            doc = session.createDocument(doc);
+            doc.setPropertyValue("contract:status", ContractService.IN_REVIEW);
+            ids.add(session.saveDocument(doc).getId());
+        }
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+        return ids;
+    }
+
+    @Test
+    public void shouldApplyTransition() {
+        String id = createInReview(1).get(0);
+        DocumentModel doc = session.getDocument(new IdRef(id));
+        assertEquals(Outcome.APPLIED,
+                contractService.transition(session, doc, ContractService.IN_REVIEW, ContractService.APPROVED).outcome());
+        assertEquals(Outcome.SKIPPED, contractService.transition(session, doc, ContractService.IN_REVIEW,
+                ContractService.REJECTED).outcome());
+        assertEquals(ContractService.APPROVED, session.getDocument(new IdRef(id)).getPropertyValue("contract:status"));
+    }
+
+    @Test
+    public void shouldNotOverwriteConcurrentChange() throws Exception {
+        String id = createInReview(1).get(0);
+        DocumentModel stale = session.getDocument(new IdRef(id));
+
+        // another node approves and commits while we hold the old version
+        Thread other = new Thread(() -> TransactionHelper.runInTransaction(() -> {
+            CoreSession otherSession = CoreInstance.getCoreSessionSystem(session.getRepositoryName());
+            contractService.approveContract(otherSession, otherSession.getDocument(new IdRef(id)));
+        }));
+        other.start();
+        other.join();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        assertEquals(Outcome.SKIPPED, contractService.transition(session, stale, ContractService.IN_REVIEW,
+                ContractService.REJECTED).outcome());
+        session.save();
+        assertEquals(ContractService.APPROVED, session.getDocument(new IdRef(id)).getPropertyValue("contract:status"));
+    }
+
+    @Test
+    public void shouldLetExactlyOneRacerWin() throws Exception {
+        int contracts = 10;
+        int threads = 16;
+        List<String> ids = createInReview(contracts);
+        Map<String, AtomicInteger> wins = new ConcurrentHashMap<>();
+        Map<String, String> winningStatus = new ConcurrentHashMap<>();
+        Map<Outcome, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            String target = t % 2 == 0 ? ContractService.APPROVED : ContractService.REJECTED;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (String id : ids) {
+                    try {
+                        // a lost race is an outcome: CONFLICT rolls the racer's transaction back, nothing escapes
+                        Outcome outcome = TransactionHelper.runInTransaction(() -> {
+                            CoreSession racer = CoreInstance.getCoreSessionSystem(session.getRepositoryName());
+                            DocumentModel doc = racer.getDocument(new IdRef(id));
+                            return contractService.transition(racer, doc, ContractService.IN_REVIEW, target)
+                                                  .outcome();
+                        });
+                        outcomes.computeIfAbsent(outcome, k -> new AtomicInteger()).incrementAndGet();
+                        if (outcome == Outcome.APPLIED) {
+                            wins.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+                            winningStatus.put(id, target);
+                        }
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(2, TimeUnit.MINUTES);
+
+        assertEquals(List.of(), failures);
+        int total = outcomes.values().stream().mapToInt(AtomicInteger::get).sum();
+        assertEquals(contracts * threads, total);
+        assertEquals(contracts, outcomes.get(Outcome.APPLIED).get());
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+        for (String id : ids) {
+            assertEquals("winners of " + id, 1, wins.get(id).get());
+            assertEquals(winningStatus.get(id), session.getDocument(new IdRef(id)).getPropertyValue("contract:status"));
+        }
+    }
+
+    @Test
+    public void shouldApproveBatchWithOutcomePerDocument() {
+        List<String> ids = createInReview(5);
+        DocumentModel draft = session.getDocument(new IdRef(ids.get(2)));
+        draft.setPropertyValue("contract:status", ContractService.DRAFT);
+        session.saveDocument(draft);
+        session.save();
+
+        List<DocumentModel> docs = new ArrayList<>();
+        ids.forEach(id -> docs.add(session.getDocument(new IdRef(id))));
+        List<Transition> results = contractService.approveBatch(session, docs);
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), results.get(i).doc().getId());
+            assertEquals(i == 2 ? Outcome.SKIPPED : Outcome.APPLIED, results.get(i).outcome());
+        }
+        assertEquals(ContractService.APPROVED, session.getDocument(new IdRef(ids.get(4))).getPropertyValue(
+                "contract:status"));
+    }
+
+    @Test
+    public void shouldSubmitBatchAcrossChunks() {
+        List<DocumentModel> docs = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "draft" + i, "Contract");
+            doc.setPropertyValue("dc:title", i == 0 ? "[SUBMITTED] already" : "Contract " + i);
+            docs.add(session.createDocument(doc));
+        }
+        DocumentModel folder = session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        docs.add(folder);
+        session.save();
+
+        SubmitParams params = new SubmitParams("Contract", ContractService.IN_REVIEW, "[SUBMITTED] ", true);
+        List<Transition> results = contractService.submitForApprovalBatch(session, docs, params, doc -> true);
+
+        assertEquals(251, results.size());
+        assertEquals(Outcome.REJECTED, results.get(250).outcome());
+        assertEquals("[SUBMITTED] already", results.get(0).doc().getTitle());
+        DocumentModel last = session.getDocument(new IdRef(docs.get(249).getId()));
+        assertEquals("[SUBMITTED] Contract 249", last.getTitle());
+        assertEquals(ContractService.IN_REVIEW, last.getPropertyValue("contract:status"));
+    }
+
+    @Test
+    public void shouldApproveInPathThroughPageProvider() {
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        List<String> inFolder = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DocumentModel doc = session.createDocument(session.createDocumentModel("/folder", "c" + i, "Contract"));
+            doc.setPropertyValue("contract:status", ContractService.IN_REVIEW);
+            inFolder.add(session.saveDocument(doc).getId());
+        }
+        String outside = createInReview(1).get(0);
+
+        List<String> approved = contractService.approveInPath(session, "/folder");
+
+        assertEquals(3, approved.size());
+        assertEquals(ContractService.APPROVED,
+                session.getDocument(new IdRef(inFolder.get(0))).getPropertyValue("contract:status"));
+        assertEquals(ContractService.IN_REVIEW, session.getDocument(new IdRef(outside)).getPropertyValue(
+                "contract:status"));
+    }
+
+    @Test
+    public void shouldBindPageProviderParameters() {
+        String nxql = ContractQueries.nxql(ContractQueries.BY_PATH_AND_STATUS, "/it's", ContractService.IN_REVIEW);
+        assertEquals("SELECT * FROM Contract WHERE ecm:path STARTSWITH '/it\\'s' AND contract:status = 'In Review'"
+                + " AND ecm:isProxy = 0 AND ecm:isVersion = 0", nxql);
+    }
+}
@@ -0,0 +1,183 @@
+package com.ilias.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+
+import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.StatusCounterService;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.kv.KeyValueService;
+import org.nuxeo.runtime.kv.KeyValueStore;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("com.ilias.nuxeo4-core")
+@Deploy("com.ilias.nuxeo4-core:OSGI-INF/test-statuscounters-kv-contrib.xml")
+public class TestStatusCounters {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected StatusCounterService counters;
+
+    protected DocumentModel create(String parent, String name, String type) {
+        return session.createDocument(session.createDocumentModel(parent, name, type));
+    }
+
+    protected DocumentModel setStatus(DocumentModel doc, String status) {
+        doc.setPropertyValue("contract:status", status);
+        return session.saveDocument(doc);
+    }
+
+    /** The counters are written after commit. */
+    protected void commit() {
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+    }
+
+    protected void rollback() {
+        TransactionHelper.setTransactionRollbackOnly();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+    }
+
+    protected Map<String, Long> summary(DocumentModel folder) {
+        return counters.getSummary(session.getRepositoryName(), folder.getId());
+    }
+
+    protected static Map<String, Long> counts(long draft, long inReview, long approved, long rejected) {
+        return Map.of(ContractService.DRAFT, draft, ContractService.IN_REVIEW, inReview,
+                ContractService.APPROVED, approved, ContractService.REJECTED, rejected);
+    }
+
+    @Test
+    public void shouldCountCreationsAndTransitions() {
+        DocumentModel a = create("/", "a", "Folder");
+        DocumentModel b = create("/a", "b", "Folder");
+        create("/a", "c1", "Contract");
+        DocumentModel c2 = create("/a/b", "c2", "Contract");
+        assertEquals(counts(0, 0, 0, 0), summary(a)); // nothing until commit
+        commit();
+        assertEquals(counts(2, 0, 0, 0), summary(a));
+        assertEquals(counts(1, 0, 0, 0), summary(b));
+
+        c2 = setStatus(c2, ContractService.IN_REVIEW);
+        setStatus(c2, ContractService.APPROVED);
+        commit();
+        assertEquals(counts(1, 0, 1, 0), summary(a));
+        assertEquals(counts(0, 0, 1, 0), summary(b));
+    }
+
+    @Test
+    public void shouldFollowMovesAndRemovals() {
+        DocumentModel a = create("/", "a", "Folder");
+        DocumentModel b = create("/a", "b", "Folder");
+        DocumentModel other = create("/", "other", "Folder");
+        create("/a/b", "c1", "Contract");
+        create("/a/b", "c2", "Contract");
+        commit();
+
+        session.move(b.getRef(), other.getRef(), null);
+        commit();
+        assertEquals(counts(0, 0, 0, 0), summary(a));
+        assertEquals(counts(2, 0, 0, 0), summary(other));
+        assertEquals(counts(2, 0, 0, 0), summary(b));
+
+        session.removeDocument(b.getRef());
+        commit();
+        assertEquals(counts(0, 0, 0, 0), summary(other));
+    }
+
+    @Test
+    public void shouldCountFolderMovedInTheSameTransaction() {
+        create("/", "a", "Folder");
+        DocumentModel b = create("/a", "b", "Folder");
+        DocumentModel other = create("/", "other", "Folder");
+        create("/a/b", "c1", "Contract");
+        session.move(b.getRef(), other.getRef(), null);
+        commit();
+        assertEquals(counts(1, 0, 0, 0), summary(other));
+        assertEquals(counts(1, 0, 0, 0), summary(b));
+    }
+
+    @Test
+    public void shouldIgnoreRolledBackChanges() {
+        DocumentModel a = create("/", "a", "Folder");
+        DocumentModel c1 = create("/a", "c1", "Contract");
+        commit();
+
+        setStatus(c1, ContractService.IN_REVIEW);
+        create("/a", "c2", "Contract");
+        rollback();
+        assertEquals(counts(1, 0, 0, 0), summary(a));
+    }
+
+    @Test
+    public void shouldDropTheCountersOfRemovedFolders() {
+        DocumentModel a = create("/", "a", "Folder");
+        DocumentModel b = create("/a", "b", "Folder");
+        DocumentModel c = create("/a/b", "c", "Folder");
+        create("/a/b/c", "c1", "Contract");
+        commit();
+        assertEquals(counts(1, 0, 0, 0), summary(c));
+
+        session.removeDocument(b.getRef());
+        commit();
+        KeyValueStore store = Framework.getService(KeyValueService.class)
+                                       .getKeyValueStore(StatusCounterService.STORE);
+        for (DocumentModel folder : new DocumentModel[] { b, c }) {
+            for (String status : ContractService.STATUSES) {
+                assertNull(store.getString(session.getRepositoryName() + ":" + folder.getId() + ":" + status));
+            }
+        }
+        assertEquals(counts(0, 0, 0, 0), summary(a));
+    }
+
+    @Test
+    public void shouldCountCopiedFoldersAfterCommit() {
+        DocumentModel a = create("/", "a", "Folder");
+        create("/a", "c1", "Contract");
+        DocumentModel other = create("/", "other", "Folder");
+        commit();
+
+        DocumentModel copy = session.copy(a.getRef(), other.getRef(), "copy");
+        commit();
+        assertEquals(counts(1, 0, 0, 0), summary(copy));
+        assertEquals(counts(1, 0, 0, 0), summary(other));
+        assertEquals(counts(2, 0, 0, 0), summary(session.getRootDocument()));
+    }
+
+    @Test
+    public void shouldRebuildToTheIncrementalCounts() {
+        DocumentModel a = create("/", "a", "Folder");
+        DocumentModel b = create("/a", "b", "Folder");
+        create("/a", "c1", "Contract");
+        setStatus(create("/a/b", "c2", "Contract"), ContractService.IN_REVIEW);
+        commit();
+        Map<String, Long> incrementalA = summary(a);
+        Map<String, Long> incrementalB = summary(b);
+
+        assertEquals(2, counters.rebuild(session, session.getRootDocument().getRef()));
+        assertEquals(incrementalA, summary(a));
+        assertEquals(incrementalB, summary(b));
+        assertEquals(counts(1, 1, 0, 0), summary(session.getRootDocument()));
+    }
+}
@@ -0,0 +1,119 @@
+package com.ilias.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ilias.core.SubmitCore.SubmitParams;
+import com.ilias.service.interfaces.ContractService;
+import com.ilias.service.interfaces.StatusJobService;
+import com.ilias.service.interfaces.StatusJobService.JobStatus;
+import com.ilias.service.interfaces.StatusJobService.State;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.WithFrameworkProperty;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("com.ilias.nuxeo4-core")
+@Deploy("com.ilias.nuxeo4-core:OSGI-INF/test-statusjobs-kv-contrib.xml")
+@Deploy("com.ilias.nuxeo4-core:OSGI-INF/test-rulesets-contrib.xml")
+@WithFrameworkProperty(name = "ilias.statusjob.chunkSize", value = "10")
+public class TestStatusJobs {
+
+    protected static final String IN_REVIEW_QUERY = "SELECT * FROM Contract WHERE contract:status = 'In Review'"
+            + " AND ecm:isProxy = 0";
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected StatusJobService jobs;
+
+    protected void createInReview(int count) {
+        for (int i = 0; i < count; i++) {
+            // created as Draft by the contract defaults, then submitted
+            DocumentModel doc = session.createDocument(session.createDocumentModel("/", "contract" + i, "Contract"));
+            doc.setPropertyValue("contract:status", ContractService.IN_REVIEW);
+            session.saveDocument(doc);
+        }
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+    }
+
+    protected long countInStatus(String status) {
+        return session.query("SELECT * FROM Contract WHERE contract:status = '" + status + "'").size();
+    }
+
+    @Test
+    public void shouldResumeFromCheckpoint() {
+        createInReview(25);
+        SubmitParams params = new SubmitParams("Contract", ContractService.APPROVED, "", true);
+        String jobId = jobs.create(session, IN_REVIEW_QUERY, params);
+
+        // interrupted after the first chunk
+        AtomicInteger chunks = new AtomicInteger();
+        JobStatus interrupted = jobs.run(jobId, () -> chunks.getAndIncrement() >= 1);
+        assertEquals(State.RUNNING, interrupted.state());
+        assertEquals(10, interrupted.scanned());
+        assertEquals(10, interrupted.changed());
+        assertEquals(15, countInStatus(ContractService.IN_REVIEW));
+
+        // the rest only: the first chunk is behind the checkpoint
+        JobStatus done = jobs.run(jobId, () -> false);
+        assertEquals(State.DONE, done.state());
+        assertEquals(25, done.scanned());
+        assertEquals(25, done.changed());
+        assertEquals(25, countInStatus(ContractService.APPROVED));
+        assertFalse(jobs.resume(jobId));
+    }
+
+    @Test
+    public void shouldSkipDocumentsAlreadyInTargetStatus() {
+        createInReview(5);
+        SubmitParams params = new SubmitParams("Contract", ContractService.APPROVED, "", true);
+        String jobId = jobs.create(session, "SELECT * FROM Contract WHERE ecm:isProxy = 0", params);
+        assertEquals(5, jobs.run(jobId, () -> false).changed());
+
+        // a job replaying the same documents changes nothing
+        String replay = jobs.create(session, "SELECT * FROM Contract WHERE ecm:isProxy = 0", params);
+        JobStatus status = jobs.run(replay, () -> false);
+        assertEquals(5, status.scanned());
+        assertEquals(0, status.changed());
+        assertEquals(State.DONE, jobs.getStatus(replay).state());
+    }
+
+    @Test
+    public void shouldApplyTheInMemoryChecksOfTheRuleSet() {
+        createInReview(5);
+        DocumentModel signed = session.getDocument(new PathRef("/contract0"));
+        signed.setPropertyValue("dc:title", "[CONTRACT] Signed");
+        session.saveDocument(signed);
+        session.save();
+
+        SubmitParams params = new SubmitParams("Contract", ContractService.APPROVED, "", true);
+        String jobId = jobs.create(session, IN_REVIEW_QUERY, params, "testUnsignedContracts",
+                Map.of("requiredType", "Contract"));
+        JobStatus status = jobs.run(jobId, () -> false);
+        assertEquals(5, status.scanned());
+        assertEquals(4, status.changed());
+        assertEquals(ContractService.IN_REVIEW, session.getDocument(new PathRef("/contract0"))
+                                                       .getPropertyValue("contract:status"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.ilias.service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.ilias.service.interfaces.TypeCapabilityService;
+import jakarta.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.HotDeployer;
+
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@Deploy("com.ilias.nuxeo4-core")
+public class TestTypeCapabilities {
+
+    @Inject
+    protected TypeCapabilityService capabilities;
+
+    @Inject
+    protected HotDeployer hotDeployer;
+
+    @Test
+    public void shouldAnswerPerType() {
+        assertTrue(capabilities.hasField("Contract", "contract:status"));
+        assertFalse(capabilities.hasField("File", "contract:status"));
+        assertFalse(capabilities.hasField("Contract", "contract:reviewer"));
+        assertFalse(capabilities.hasField("NoSuchType", "dc:title"));
+        // prefixed and schema spellings, and list items through their top-level field
+        assertTrue(capabilities.hasField("File", "dc:title"));
+        assertTrue(capabilities.hasField("File", "dublincore:title"));
+        assertTrue(capabilities.hasField("File", "files:files/0/file"));
+        assertTrue(capabilities.isKnownField("contract:status"));
+        assertFalse(capabilities.isKnownField("contract:reviewer"));
+    }
+
+    @Test
+    public void shouldRebuildAfterInvalidate() {
+        assertTrue(capabilities.hasField("Contract", "contract:status"));
+        capabilities.invalidate();
+        assertTrue(capabilities.hasField("Contract", "contract:status"));
+        assertFalse(capabilities.hasField("File", "contract:status"));
+    }
+
+    @Test
+    public void shouldSeeTypesDeployedAfterTheCacheWasBuilt() throws Exception {
+        // built before the deployment
+        assertFalse(capabilities.hasField("ReviewedContract", "contract:status"));
+        assertFalse(capabilities.isKnownField("review:reviewer"));
+
+        hotDeployer.deploy("com.ilias.nuxeo4-core:OSGI-INF/test-review-types-contrib.xml");
+
+        // the reload restarts the components, so look the service up again
+        TypeCapabilityService reloaded = Framework.getService(TypeCapabilityService.class);
+        assertTrue(reloaded.hasField("ReviewedContract", "contract:status"));
+        assertTrue(reloaded.hasField("ReviewedContract", "review:reviewer"));
+        assertTrue(reloaded.isKnownField("review:reviewer"));
+        assertFalse(reloaded.hasField("Contract", "review:reviewer"));
+    }
+}